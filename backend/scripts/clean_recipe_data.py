@@ -1,7 +1,137 @@
 import json
 import sys
+import unicodedata
 from pathlib import Path
 
+# Same scheme and parameters as RecipeDeduplicator in the service, so both
+# collapse the same recipes
+NEAR_DUPLICATE_THRESHOLD = 0.8
+HASHES = 64
+BANDS = 16
+ROWS = HASHES // BANDS
+MASK = (1 << 64) - 1
+FNV_OFFSET = 0xcbf29ce484222325
+FNV_PRIME = 0x100000001b3
+
+
+def mix(z):
+    """SplitMix64 finalizer on an unsigned 64-bit value."""
+    z = ((z ^ (z >> 30)) * 0xBF58476D1CE4E5B9) & MASK
+    z = ((z ^ (z >> 27)) * 0x94D049BB133111EB) & MASK
+    return z ^ (z >> 31)
+
+
+SEEDS = [mix(((k + 1) * 0x9E3779B97F4A7C15) & MASK) for k in range(HASHES)]
+
+
+def normalize(text):
+    """Lowercase letters and digits, every other run of characters becoming a single space."""
+    if text is None:
+        return ''
+    chars = []
+    for c in str(text):
+        category = unicodedata.category(c)
+        if category[0] == 'L' or category == 'Nd':
+            chars.append(c.lower())
+        elif chars and chars[-1] != ' ':
+            chars.append(' ')
+    return ''.join(chars).rstrip(' ')
+
+
+def fingerprint(feature):
+    """64-bit FNV-1a of the UTF-8 bytes."""
+    h = FNV_OFFSET
+    for b in feature.encode('utf-8'):
+        h = ((h ^ b) * FNV_PRIME) & MASK
+    return h
+
+
+def features(title, ingredients):
+    """Distinct fingerprints of the title words and the ingredients."""
+    words = title.split(' ') if title else []
+    return sorted({fingerprint('t:' + w) for w in words} | {fingerprint('i:' + i) for i in ingredients})
+
+
+def band_keys(feature_set):
+    """Bucket of each band of the MinHash signature, or None for a band whose
+    minimums all come from one feature."""
+    signature = [MASK] * HASHES
+    min_features = [-1] * HASHES
+    for f, feature in enumerate(feature_set):
+        for k in range(HASHES):
+            h = mix(feature ^ SEEDS[k]) >> 1
+            if h < signature[k]:
+                signature[k] = h
+                min_features[k] = f
+    keys = []
+    for band in range(BANDS):
+        rows = range(band * ROWS, (band + 1) * ROWS)
+        h = band
+        for row in rows:
+            h = mix(h ^ signature[row])
+        mixed = any(min_features[row] != min_features[band * ROWS] for row in rows)
+        keys.append(h >> 33 if mixed else None)
+    return keys
+
+
+def jaccard(a, b):
+    a, b = set(a), set(b)
+    union = len(a | b)
+    return len(a & b) / union if union else 1.0
+
+
+def deduplicate(recipes, threshold=NEAR_DUPLICATE_THRESHOLD):
+    """Keep the first copy of each recipe, dropping exact duplicates (same
+    normalized title and ingredient set) and near duplicates (title words and
+    ingredients at least threshold similar to a kept recipe; 0 disables).
+
+    Returns the kept recipes and a report entry for each dropped one.
+    """
+    kept, duplicates = [], []
+    exact_keys = {}
+    kept_features = []
+    buckets = [dict() for _ in range(BANDS)]
+
+    for recipe in recipes:
+        title = normalize(recipe.get('title'))
+        ingredients = sorted({normalize(i) for i in recipe.get('cleanedIngredients') or []} - {''})
+        key = title + '\n' + '\n'.join(ingredients)
+
+        representative, similarity = exact_keys.get(key), 1.0
+        if representative is None and threshold > 0:
+            feature_set = features(title, ingredients)
+            keys = band_keys(feature_set)
+            candidates = {c for band, k in enumerate(keys) if k is not None for c in buckets[band].get(k, [])}
+            best = None
+            for c in sorted(candidates):
+                s = jaccard(feature_set, kept_features[c])
+                if s >= threshold and (best is None or s > similarity):
+                    best, similarity = c, s
+            representative = best
+
+        if representative is not None:
+            original = kept[representative]
+            duplicates.append({
+                'title': recipe.get('title'),
+                'recipeIndex': recipe.get('recipeIndex'),
+                'keptTitle': original.get('title'),
+                'keptRecipeIndex': original.get('recipeIndex'),
+                'kind': 'exact' if key in exact_keys else 'near',
+                'similarity': similarity,
+            })
+            continue
+
+        position = len(kept)
+        kept.append(recipe)
+        exact_keys[key] = position
+        if threshold > 0:
+            kept_features.append(feature_set)
+            for band, k in enumerate(keys):
+                if k is not None:
+                    buckets[band].setdefault(k, []).append(position)
+    return kept, duplicates
+
+
 def clean_recipe(recipe):
     """Clean and standardize a single recipe object."""
     cleaned = {}
@@ -65,6 +195,10 @@ def clean_recipe_data(input_file, output_file):
                 print(f"Error cleaning recipe: {e}")
                 continue
         
+        # Collapse repeated recipes
+        read_count = len(cleaned_recipes)
+        cleaned_recipes, duplicates = deduplicate(cleaned_recipes)
+        
         # Create output directory if it doesn't exist
         output_path = Path(output_file)
         output_path.parent.mkdir(parents=True, exist_ok=True)
@@ -73,8 +207,22 @@ def clean_recipe_data(input_file, output_file):
         with open(output_file, 'w', encoding='utf-8') as f:
             json.dump({'recipes': cleaned_recipes}, f, indent=2, ensure_ascii=False)
         
+        # Write what was collapsed next to it
+        report_path = output_path.with_name(output_path.stem + '_duplicates.json')
+        exact_count = sum(1 for d in duplicates if d['kind'] == 'exact')
+        with open(report_path, 'w', encoding='utf-8') as f:
+            json.dump({
+                'recipesRead': read_count,
+                'recipesKept': len(cleaned_recipes),
+                'exactDuplicates': exact_count,
+                'nearDuplicates': len(duplicates) - exact_count,
+                'duplicates': duplicates
+            }, f, indent=2, ensure_ascii=False)
+        
         print(f"Successfully cleaned {len(cleaned_recipes)} recipes")
+        print(f"Collapsed {exact_count} exact and {len(duplicates) - exact_count} near duplicates")
         print(f"Cleaned data saved to: {output_file}")
+        print(f"Duplicate report saved to: {report_path}")
         
     except Exception as e:
         print(f"Error processing file: {e}")
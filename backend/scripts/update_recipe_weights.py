@@ -1,88 +1,76 @@
+"""Legacy recipe weight helpers for exploring the CSV export.
+
+The catalog the service loads is weighed by the Java RecipeWeightPipeline
+(com.leftoverchef.backend.service), which streams the raw JSON catalog and
+fills in Estimated_Pounds on all cores; use that for anything the service
+reads. This script shares src/main/resources/ingredient_weights.json with it
+but keeps its older quantity parsing, which misses mixed numbers, unicode
+fractions and ranges ("1 1/2 cups" is half a cup here), so its estimates
+differ from the service's.
+"""
 import pandas as pd
 import re
 from typing import List, Dict, Tuple
 import json
 import csv
+import os
     
+WEIGHTS_FILE = os.path.join(os.path.dirname(os.path.abspath(__file__)),
+                            '..', 'src', 'main', 'resources', 'ingredient_weights.json')
+
+def load_weight_table(path: str = WEIGHTS_FILE) -> Tuple[Dict[str, float], List[Tuple[str, float]]]:
+    """Load the weight table shared with the Java service.
+
+    Returns pounds per unit spelling, and ingredient types with their pounds in
+    table order for the longest-match rule.
+    """
+    with open(path, 'r', encoding='utf-8') as f:
+        table = json.load(f)
+    unit_pounds = {}
+    for unit, entry in table['units'].items():
+        for spelling in [unit] + entry.get('spellings', []):
+            unit_pounds[spelling.lower()] = float(entry['pounds'])
+    types = [(item.lower(), float(weight))
+             for items in table['ingredients'].values()
+             for item, weight in items.items()]
+    return unit_pounds, types
+
+UNIT_POUNDS, INGREDIENT_TYPES = load_weight_table()
+# Longest spelling first so "tbsp" is not read as "tbs", and whole words only
+# so "1 garlic" is not read as grams
+QUANTITY_PATTERN = re.compile(
+    r'(\d+(?:/\d+)?|\d*\.\d+)\s*('
+    + '|'.join(re.escape(u) for u in sorted(UNIT_POUNDS, key=len, reverse=True))
+    + r')\b')
+
 def get_ingredient_base_weight(ingredient: str) -> float:
     """Calculate base weight for a single ingredient."""
-    # Common ingredient weights in pounds
-    weights = {
-        'chicken': {
-            'whole': 4.0,
-            'breast': 0.5,
-            'thigh': 0.375,
-            'wing': 0.25
-        },
-        'beef': {
-            'ground': 1.0,
-            'steak': 0.75,
-            'roast': 3.0
-        },
-        'pork': {
-            'chop': 0.5,
-            'tenderloin': 1.0,
-            'shoulder': 3.0
-        },
-        'vegetables': {
-            'onion': 0.5,
-            'potato': 0.375,
-            'carrot': 0.25,
-            'squash': 1.5,
-            'tomato': 0.375,
-            'pepper': 0.25,
-            'garlic': 0.0625
-        },
-        'fruits': {
-            'apple': 0.375,
-            'orange': 0.375,
-            'lemon': 0.25,
-            'banana': 0.375
-        }
-    }
-    
-    # Convert measurements to pounds
-    measurement_conversions = {
-        'cup': 0.5,  # Average weight of a cup of ingredients in pounds
-        'tablespoon': 0.0625,
-        'teaspoon': 0.0208,
-        'ounce': 0.0625,
-        'pound': 1.0,
-        'gram': 0.0022
-    }
-    
     ingredient_lower = str(ingredient).lower()
     
     # Extract quantity and unit
-    quantity_pattern = r'(\d+(?:/\d+)?|\d*\.\d+)\s*(cup|tablespoon|teaspoon|pound|ounce|lb|oz|g)'
-    matches = re.findall(quantity_pattern, ingredient_lower)
+    match = QUANTITY_PATTERN.search(ingredient_lower)
     
-    if matches:
-        quantity_str, unit = matches[0]
+    if match:
+        quantity_str, unit = match.groups()
         # Convert fractions to decimals
         if '/' in quantity_str:
             num, denom = map(float, quantity_str.split('/'))
+            if denom == 0:
+                return 0.25
             quantity = num / denom
         else:
             quantity = float(quantity_str)
-            
-        # Standardize units
-        unit_mapping = {
-            'lb': 'pound',
-            'oz': 'ounce',
-            'g': 'gram',
-            'tbsp': 'tablespoon',
-            'tsp': 'teaspoon'
-        }
-        unit = unit_mapping.get(unit, unit)
         
-        return quantity * measurement_conversions.get(unit, 1.0)
-    
-    # If no specific measurement, estimate based on ingredient type
-    for category, items in weights.items():
-        for item, weight in items.items():
-            if item in ingredient_lower:
-                return weight
+        return quantity * UNIT_POUNDS[unit]
+    
+    # If no specific measurement, estimate based on ingredient type; the
+    # longest type in the line wins, ties going to the one listed first
+    best = None
+    for item, weight in INGREDIENT_TYPES:
+        if item in ingredient_lower and (best is None or len(item) > len(best[0])):
+            best = (item, weight)
+    if best is not None:
+        return best[1]
     
     # Default weight for unknown ingredients
     return 0.25  # Quarter pound default
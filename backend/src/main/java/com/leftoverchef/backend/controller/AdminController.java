@@ -0,0 +1,77 @@
+package com.leftoverchef.backend.controller;
+
+import com.leftoverchef.backend.service.RecipeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+/**
+ * Operator endpoints for the recipe catalog. They only exist when
+ * recipe.admin.enabled is true, answer only requests carrying the configured
+ * recipe.admin.token in the X-Admin-Token header (none at all while it is
+ * blank), and, unlike the public API, allow no cross-origin callers.
+ */
+@RestController
+@RequestMapping("/api/admin")
+@ConditionalOnProperty(name = "recipe.admin.enabled", havingValue = "true")
+public class AdminController {
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+    static final String TOKEN_HEADER = "X-Admin-Token";
+    private static final int MAX_DUPLICATES_LISTED = 10_000;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Value("${recipe.admin.token:}")
+    private String adminToken = "";
+
+    @PostMapping("/recipes/reload")
+    public ResponseEntity<Map<String, Object>> reloadRecipes(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        logger.info("Received recipe catalog reload request");
+        Map<String, Object> summary = recipeService.reloadCatalog();
+        if (Boolean.TRUE.equals(summary.get("reloaded"))) {
+            return ResponseEntity.ok(summary);
+        }
+        return ResponseEntity.internalServerError().body(summary);
+    }
+
+    @GetMapping("/recipes/duplicates")
+    public ResponseEntity<Map<String, Object>> getDuplicateReport(
+            @RequestHeader(value = TOKEN_HEADER, required = false) String token,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (!authorized(token)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (limit < 0 || limit > MAX_DUPLICATES_LISTED) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(recipeService.getDuplicateReport(limit));
+    }
+
+    private boolean authorized(String token) {
+        if (adminToken == null || adminToken.isBlank() || token == null) {
+            logger.warn("Rejected admin request without a valid token");
+            return false;
+        }
+        // Compared in constant time so response timing does not leak the token
+        boolean valid = MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8),
+            token.getBytes(StandardCharsets.UTF_8));
+        if (!valid) {
+            logger.warn("Rejected admin request without a valid token");
+        }
+        return valid;
+    }
+}
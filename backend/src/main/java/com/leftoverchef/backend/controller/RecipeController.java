@@ -1,13 +1,22 @@
 package com.leftoverchef.backend.controller;
 
+import com.leftoverchef.backend.model.IngredientSuggestion;
+import com.leftoverchef.backend.model.PartialMatch;
 import com.leftoverchef.backend.model.Recipe;
+import com.leftoverchef.backend.model.RecipeFilter;
+import com.leftoverchef.backend.model.ScoredRecipe;
 import com.leftoverchef.backend.service.RecipeService;
+import com.leftoverchef.backend.util.IngredientWeightCalculator;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,24 +25,40 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class RecipeController {
     private static final Logger logger = LoggerFactory.getLogger(RecipeController.class);
+    private static final int MAX_TOP_RECIPES = 100;
+    private static final int MAX_BATCH_PANTRIES = 1000;
+    private static final int MAX_MISSING_INGREDIENTS = 20;
+    private static final int MAX_FILTER_INGREDIENTS = 50;
+    private static final int MAX_PANTRY_ITEMS = 100;
 
     @Autowired
     private RecipeService recipeService;
 
     @PostMapping(value = "/recipes", consumes = "application/json")
-    public ResponseEntity<Recipe> getRecipe(@RequestBody Map<String, Object> payload) {
+    public ResponseEntity<Recipe> getRecipe(@RequestBody Map<String, Object> payload, HttpServletRequest request) {
         logger.info("Received recipe request with payload: {}", payload);
         
         @SuppressWarnings("unchecked")
         List<String> userIngredients = (List<String>) payload.get("ingredients");
         logger.info("Extracted ingredients: {}", userIngredients);
         
-        if (userIngredients == null || userIngredients.isEmpty()) {
-            logger.warn("No ingredients provided in request");
+        if (userIngredients == null || userIngredients.isEmpty() || userIngredients.size() > MAX_PANTRY_ITEMS) {
+            logger.warn("No ingredients or too many provided in request");
             return ResponseEntity.badRequest().build();
         }
         
-        Recipe recipe = recipeService.matchRecipe(userIngredients);
+        RecipeFilter filter = filterFrom(payload);
+        if (filter == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        Map<String, Double> quantities = quantitiesFrom(payload);
+        if (quantities == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        Recipe recipe = recipeService.matchRecipe(userIngredients, rotationSession(request, payload), filter,
+            quantities);
         logger.info("Found recipe: {}", recipe);
         
         if (recipe != null) {
@@ -44,20 +69,113 @@ public class RecipeController {
         }
     }
     
+    @PostMapping(value = "/recipes/top", consumes = "application/json")
+    public ResponseEntity<List<ScoredRecipe>> getTopRecipes(@RequestBody Map<String, Object> payload,
+                                                            @RequestParam(defaultValue = "5") int k) {
+        logger.info("Received top {} recipes request with payload: {}", k, payload);
+        
+        @SuppressWarnings("unchecked")
+        List<String> userIngredients = (List<String>) payload.get("ingredients");
+        
+        if (userIngredients == null || userIngredients.isEmpty() || userIngredients.size() > MAX_PANTRY_ITEMS
+            || k < 1 || k > MAX_TOP_RECIPES) {
+            logger.warn("Invalid top recipes request: ingredients={}, k={}", userIngredients, k);
+            return ResponseEntity.badRequest().build();
+        }
+        
+        RecipeFilter filter = filterFrom(payload);
+        if (filter == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        Map<String, Double> quantities = quantitiesFrom(payload);
+        if (quantities == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        List<ScoredRecipe> recipes = recipeService.getTopRecipes(userIngredients, k, filter, quantities);
+        logger.info("Found {} top recipes", recipes.size());
+        return ResponseEntity.ok(recipes);
+    }
+    
+    @PostMapping(value = "/recipes/batch", consumes = "application/json")
+    public ResponseEntity<List<List<ScoredRecipe>>> getTopRecipesBatch(@RequestBody Map<String, Object> payload,
+                                                                       @RequestParam(defaultValue = "5") int k) {
+        Object pantries = payload.get("pantries");
+        if (!(pantries instanceof List) || ((List<?>) pantries).isEmpty()
+            || ((List<?>) pantries).size() > MAX_BATCH_PANTRIES || k < 1 || k > MAX_TOP_RECIPES) {
+            logger.warn("Invalid batch recipes request: k={}, pantries={}", k,
+                pantries instanceof List ? ((List<?>) pantries).size() : pantries);
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Received batch request for top {} recipes of {} pantries", k, ((List<?>) pantries).size());
+        for (Object pantry : (List<?>) pantries) {
+            if (pantry != null && (!(pantry instanceof List) || ((List<?>) pantry).size() > MAX_PANTRY_ITEMS
+                || ((List<?>) pantry).stream().anyMatch(item -> !(item instanceof String)))) {
+                logger.warn("Invalid pantry in batch request: {}", pantry);
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<List<String>> userPantries = (List<List<String>>) pantries;
+        
+        RecipeFilter filter = filterFrom(payload);
+        if (filter == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        return ResponseEntity.ok(recipeService.getTopRecipesBatch(userPantries, k, filter));
+    }
+    
+    @PostMapping(value = "/recipes/missing", consumes = "application/json")
+    public ResponseEntity<List<PartialMatch>> getRecipesMissingAtMost(@RequestBody Map<String, Object> payload,
+                                                                      @RequestParam(defaultValue = "2") int maxMissing,
+                                                                      @RequestParam(defaultValue = "5") int k) {
+        logger.info("Received request for top {} recipes missing at most {} ingredients with payload: {}",
+            k, maxMissing, payload);
+        
+        @SuppressWarnings("unchecked")
+        List<String> userIngredients = (List<String>) payload.get("ingredients");
+        
+        if (userIngredients == null || userIngredients.isEmpty() || userIngredients.size() > MAX_PANTRY_ITEMS
+            || k < 1 || k > MAX_TOP_RECIPES || maxMissing < 0 || maxMissing > MAX_MISSING_INGREDIENTS) {
+            logger.warn("Invalid missing ingredients request: ingredients={}, maxMissing={}, k={}",
+                userIngredients, maxMissing, k);
+            return ResponseEntity.badRequest().build();
+        }
+        
+        RecipeFilter filter = filterFrom(payload);
+        if (filter == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        List<PartialMatch> recipes = recipeService.getRecipesMissingAtMost(userIngredients, maxMissing, k, filter);
+        logger.info("Found {} recipes missing at most {} ingredients", recipes.size(), maxMissing);
+        return ResponseEntity.ok(recipes);
+    }
+    
     @PostMapping(value = "/recipes/alternative", consumes = "application/json")
-    public ResponseEntity<Recipe> getAlternativeRecipe(@RequestBody Map<String, Object> payload) {
+    public ResponseEntity<Recipe> getAlternativeRecipe(@RequestBody Map<String, Object> payload,
+                                                       HttpServletRequest request) {
         logger.info("Received alternative recipe request with payload: {}", payload);
         
         @SuppressWarnings("unchecked")
         List<String> userIngredients = (List<String>) payload.get("ingredients");
         logger.info("Extracted ingredients for alternative: {}", userIngredients);
         
-        if (userIngredients == null || userIngredients.isEmpty()) {
-            logger.warn("No ingredients provided in alternative request");
+        if (userIngredients == null || userIngredients.isEmpty() || userIngredients.size() > MAX_PANTRY_ITEMS) {
+            logger.warn("No ingredients or too many provided in alternative request");
+            return ResponseEntity.badRequest().build();
+        }
+        
+        RecipeFilter filter = filterFrom(payload);
+        if (filter == null) {
             return ResponseEntity.badRequest().build();
         }
         
-        Recipe recipe = recipeService.getAlternativeRecipe(userIngredients);
+        Recipe recipe = recipeService.getAlternativeRecipe(userIngredients, rotationSession(request, payload),
+            filter);
         logger.info("Found alternative recipe: {}", recipe);
         
         if (recipe != null) {
@@ -68,6 +186,157 @@ public class RecipeController {
         }
     }
     
+    @PostMapping(value = "/ingredients/pairings", consumes = "application/json")
+    public ResponseEntity<List<IngredientSuggestion>> getPairings(@RequestBody Map<String, Object> payload,
+                                                                  @RequestParam(defaultValue = "10") int k) {
+        @SuppressWarnings("unchecked")
+        List<String> userIngredients = (List<String>) payload.get("ingredients");
+        
+        if (userIngredients == null || userIngredients.isEmpty() || userIngredients.size() > MAX_PANTRY_ITEMS
+            || k < 1 || k > MAX_TOP_RECIPES) {
+            logger.warn("Invalid pairings request: ingredients={}, k={}", userIngredients, k);
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(recipeService.getPairings(userIngredients, k));
+    }
+    
+    @GetMapping("/pantry")
+    public ResponseEntity<List<String>> getPantry(HttpSession session) {
+        return ResponseEntity.ok(recipeService.getPantry(session.getId()));
+    }
+    
+    @PutMapping(value = "/pantry", consumes = "application/json")
+    public ResponseEntity<List<String>> setPantry(@RequestBody Map<String, Object> payload, HttpSession session) {
+        Object ingredients = payload.get("ingredients");
+        if (!(ingredients instanceof List) || ((List<?>) ingredients).size() > MAX_PANTRY_ITEMS
+            || ((List<?>) ingredients).stream().anyMatch(item -> !(item instanceof String))) {
+            logger.warn("Invalid pantry: {}", ingredients);
+            return ResponseEntity.badRequest().build();
+        }
+        
+        @SuppressWarnings("unchecked")
+        List<String> userIngredients = (List<String>) ingredients;
+        return ResponseEntity.ok(recipeService.setPantry(session.getId(), userIngredients));
+    }
+    
+    @PostMapping(value = "/pantry/items", consumes = "application/json")
+    public ResponseEntity<List<String>> addPantryItem(@RequestBody Map<String, Object> payload, HttpSession session) {
+        Object ingredient = payload.get("ingredient");
+        if (!(ingredient instanceof String) || ((String) ingredient).trim().isEmpty()) {
+            logger.warn("Invalid pantry item: {}", ingredient);
+            return ResponseEntity.badRequest().build();
+        }
+        List<String> pantry = recipeService.addPantryItem(session.getId(), (String) ingredient, MAX_PANTRY_ITEMS);
+        if (pantry == null) {
+            logger.warn("Pantry full, not adding: {}", ingredient);
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(pantry);
+    }
+    
+    @DeleteMapping("/pantry/items/{ingredient}")
+    public ResponseEntity<Void> removePantryItem(@PathVariable String ingredient, HttpSession session) {
+        if (recipeService.removePantryItem(session.getId(), ingredient)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+    
+    @GetMapping("/pantry/recipes")
+    public ResponseEntity<List<ScoredRecipe>> getPantryTopRecipes(@RequestParam(defaultValue = "5") int k,
+                                                                  HttpSession session) {
+        if (k < 1 || k > MAX_TOP_RECIPES) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(recipeService.getPantryTopRecipes(session.getId(), k));
+    }
+    
+    /**
+     * Session ID the recipe rotation is kept under: the client's existing
+     * session, or a new one when the payload asks for "rotate"; null, so
+     * matching stays stateless and sets no cookie, otherwise
+     */
+    private static String rotationSession(HttpServletRequest request, Map<String, Object> payload) {
+        HttpSession session = request.getSession(Boolean.TRUE.equals(payload.get("rotate")));
+        return session != null ? session.getId() : null;
+    }
+    
+    /**
+     * Optional "maxMinutes" and "minPounds" bounds and "require" and "exclude"
+     * ingredient lists from the payload, or null when one of them is present
+     * but malformed
+     */
+    private RecipeFilter filterFrom(Map<String, Object> payload) {
+        Object maxMinutes = payload.get("maxMinutes");
+        Object minPounds = payload.get("minPounds");
+        Object require = payload.get("require");
+        Object exclude = payload.get("exclude");
+        if (maxMinutes != null && !(maxMinutes instanceof Number)
+            || minPounds != null && !(minPounds instanceof Number)
+            || require != null && !isStringList(require) || exclude != null && !isStringList(exclude)) {
+            logger.warn("Invalid recipe filter: maxMinutes={}, minPounds={}, require={}, exclude={}",
+                maxMinutes, minPounds, require, exclude);
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        RecipeFilter filter = new RecipeFilter(
+            maxMinutes != null ? ((Number) maxMinutes).doubleValue() : null,
+            minPounds != null ? ((Number) minPounds).doubleValue() : null,
+            (List<String>) require, (List<String>) exclude);
+        return filter;
+    }
+    
+    /**
+     * Optional "quantities" of pantry items in pounds, as numbers, or as
+     * measurements such as "2 lb" or "1/2 cup" and counts such as "3" weighed
+     * by IngredientWeightCalculator; empty when absent, null when malformed,
+     * negative or not finite
+     */
+    private Map<String, Double> quantitiesFrom(Map<String, Object> payload) {
+        Object quantities = payload.get("quantities");
+        if (quantities == null) {
+            return Collections.emptyMap();
+        }
+        if (!(quantities instanceof Map)) {
+            logger.warn("Invalid quantities: {}", quantities);
+            return null;
+        }
+        Map<String, Double> pounds = new HashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) quantities).entrySet()) {
+            String item = String.valueOf(entry.getKey());
+            Object quantity = entry.getValue();
+            double weight = Double.NaN;
+            if (quantity instanceof Number) {
+                weight = ((Number) quantity).doubleValue();
+            } else if (quantity instanceof String && !((String) quantity).trim().startsWith("-")) {
+                weight = IngredientWeightCalculator.calculateQuantityWeight((String) quantity, item);
+            }
+            if (!Double.isFinite(weight) || weight < 0) {
+                logger.warn("Invalid quantity for {}: {}", item, quantity);
+                return null;
+            }
+            pounds.put(item, weight);
+        }
+        return pounds;
+    }
+    
+    private static boolean isStringList(Object value) {
+        if (!(value instanceof List) || ((List<?>) value).size() > MAX_FILTER_INGREDIENTS) {
+            return false;
+        }
+        for (Object item : (List<?>) value) {
+            if (!(item instanceof String)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @GetMapping("/recipes/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(recipeService.getCacheStats());
+    }
+    
     @GetMapping("/food-saved")
     public ResponseEntity<Double> getTotalFoodSaved() {
         logger.info("Getting total food saved");
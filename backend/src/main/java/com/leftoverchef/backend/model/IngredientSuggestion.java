@@ -0,0 +1,24 @@
+package com.leftoverchef.backend.model;
+
+/**
+ * An ingredient that pairs with a pantry, with how often it appears alongside
+ * the pantry's ingredients across the catalog.
+ */
+public class IngredientSuggestion {
+
+    private final String ingredient;
+    private final int count;
+
+    public IngredientSuggestion(String ingredient, int count) {
+        this.ingredient = ingredient;
+        this.count = count;
+    }
+
+    public String getIngredient() {
+        return ingredient;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,35 @@
+package com.leftoverchef.backend.model;
+
+import java.util.List;
+
+/**
+ * A recipe the pantry almost covers, with the ingredients still to buy.
+ */
+public class PartialMatch {
+
+    private final Recipe recipe;
+    private final double score;
+    private final List<String> missingIngredients;
+
+    public PartialMatch(Recipe recipe, double score, List<String> missingIngredients) {
+        this.recipe = recipe;
+        this.score = score;
+        this.missingIngredients = missingIngredients;
+    }
+
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public List<String> getMissingIngredients() {
+        return missingIngredients;
+    }
+
+    public int getMissingCount() {
+        return missingIngredients.size();
+    }
+}
@@ -1,10 +1,13 @@
 package com.leftoverchef.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSetter;
+import com.leftoverchef.backend.util.TextBlob;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Recipe {
@@ -33,12 +36,46 @@ public class Recipe {
     @JsonProperty("Estimated_Pounds")
     private String estimatedPounds;
 
+    @JsonProperty("Ingredient_Weights")
+    private Map<String, Double> ingredientWeights;
+
+    // Sorted dictionary IDs of the cleaned ingredients, assigned when the catalog is built
+    @JsonIgnore
+    private int[] ingredientIds;
+
+    // Off-heap home of the instructions and raw ingredients text once the catalog is loaded
+    @JsonIgnore
+    private TextBlob textBlob;
+    private int instructionsRef = -1;
+    private int ingredientsRef = -1;
+
     private double score;
 
     public Recipe() {
         this.cleanedIngredients = new ArrayList<>();
     }
 
+    /**
+     * Copy of a catalog recipe carrying the score it got for one request, so the
+     * shared catalog instance is never written to while serving.
+     */
+    public Recipe(Recipe other, double score) {
+        this.recipeIndex = other.recipeIndex;
+        this.title = other.title;
+        this.instructions = other.instructions;
+        this.imageName = other.imageName;
+        this.estimatedTimeMinutes = other.estimatedTimeMinutes;
+        this.ingredients = other.ingredients;
+        this.cleanedIngredients = other.cleanedIngredients;
+        this.estimatedPounds = other.estimatedPounds;
+        this.ingredientWeights = other.ingredientWeights;
+        this.ingredientIds = other.ingredientIds;
+        this.textBlob = other.textBlob;
+        this.instructionsRef = other.instructionsRef;
+        this.ingredientsRef = other.ingredientsRef;
+        this.score = score;
+    }
+
     // Getter and Setter methods
     public String getRecipeIndex() {
         return recipeIndex;
@@ -57,11 +94,12 @@ public class Recipe {
     }
 
     public String getInstructions() {
-        return instructions;
+        return instructions != null || textBlob == null ? instructions : textBlob.get(instructionsRef);
     }
 
     public void setInstructions(String instructions) {
         this.instructions = instructions;
+        this.instructionsRef = -1;
     }
 
     public String getImageName() {
@@ -81,11 +119,24 @@ public class Recipe {
     }
 
     public String getIngredients() {
-        return ingredients;
+        return ingredients != null || textBlob == null ? ingredients : textBlob.get(ingredientsRef);
     }
 
     public void setIngredients(String ingredients) {
         this.ingredients = ingredients;
+        this.ingredientsRef = -1;
+    }
+
+    /**
+     * Serve the instructions and raw ingredients from a text blob, decoding them
+     * only when read; -1 means the field is absent. The heap copies are dropped.
+     */
+    public void setExternalText(TextBlob textBlob, int instructionsRef, int ingredientsRef) {
+        this.textBlob = textBlob;
+        this.instructions = null;
+        this.instructionsRef = instructionsRef;
+        this.ingredients = null;
+        this.ingredientsRef = ingredientsRef;
     }
 
     public List<String> getCleanedIngredients() {
@@ -104,6 +155,22 @@ public class Recipe {
         this.estimatedPounds = estimatedPounds;
     }
 
+    public Map<String, Double> getIngredientWeights() {
+        return ingredientWeights;
+    }
+
+    public void setIngredientWeights(Map<String, Double> ingredientWeights) {
+        this.ingredientWeights = ingredientWeights;
+    }
+
+    public int[] getIngredientIds() {
+        return ingredientIds;
+    }
+
+    public void setIngredientIds(int[] ingredientIds) {
+        this.ingredientIds = ingredientIds;
+    }
+
     public double getScore() {
         return score;
     }
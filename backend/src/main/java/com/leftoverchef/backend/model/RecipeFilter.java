@@ -0,0 +1,78 @@
+package com.leftoverchef.backend.model;
+
+import java.util.List;
+
+/**
+ * Constraints a recipe must meet before it is scored. Unset bounds do not
+ * constrain; a recipe missing a value never meets a bound on it. Required and
+ * excluded items match ingredients the way pantry items do, by substring: a
+ * recipe must have an ingredient containing every required item and none
+ * containing an excluded one.
+ */
+public class RecipeFilter {
+
+    private Double maxMinutes;
+    private Double minPounds;
+    private List<String> require;
+    private List<String> exclude;
+
+    public RecipeFilter() {
+    }
+
+    public RecipeFilter(Double maxMinutes, Double minPounds) {
+        this.maxMinutes = maxMinutes;
+        this.minPounds = minPounds;
+    }
+
+    public RecipeFilter(Double maxMinutes, Double minPounds, List<String> require, List<String> exclude) {
+        this(maxMinutes, minPounds);
+        this.require = require;
+        this.exclude = exclude;
+    }
+
+    public boolean isEmpty() {
+        return !hasBounds() && (require == null || require.isEmpty()) && (exclude == null || exclude.isEmpty());
+    }
+
+    public boolean hasBounds() {
+        return maxMinutes != null || minPounds != null;
+    }
+
+    public Double getMaxMinutes() {
+        return maxMinutes;
+    }
+
+    public void setMaxMinutes(Double maxMinutes) {
+        this.maxMinutes = maxMinutes;
+    }
+
+    public Double getMinPounds() {
+        return minPounds;
+    }
+
+    public void setMinPounds(Double minPounds) {
+        this.minPounds = minPounds;
+    }
+
+    public List<String> getRequire() {
+        return require;
+    }
+
+    public void setRequire(List<String> require) {
+        this.require = require;
+    }
+
+    public List<String> getExclude() {
+        return exclude;
+    }
+
+    public void setExclude(List<String> exclude) {
+        this.exclude = exclude;
+    }
+
+    @Override
+    public String toString() {
+        return "RecipeFilter{maxMinutes=" + maxMinutes + ", minPounds=" + minPounds
+            + ", require=" + require + ", exclude=" + exclude + "}";
+    }
+}
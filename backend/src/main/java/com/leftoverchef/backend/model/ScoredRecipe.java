@@ -0,0 +1,23 @@
+package com.leftoverchef.backend.model;
+
+/**
+ * A recipe together with the score it got for one pantry.
+ */
+public class ScoredRecipe {
+
+    private final Recipe recipe;
+    private final double score;
+
+    public ScoredRecipe(Recipe recipe, double score) {
+        this.recipe = recipe;
+        this.score = score;
+    }
+
+    public Recipe getRecipe() {
+        return recipe;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,128 @@
+package com.leftoverchef.backend.service;
+
+/**
+ * Scores with one bitmask per ingredient term marking the pantry entries whose
+ * item the term contains. The entries a recipe covers are then the OR of the
+ * masks of its ingredient IDs, read from the catalog's flat arrays, and the
+ * match count is their bit count: a few loads and one popcount per recipe
+ * instead of a merge per pantry entry. Pantries of up to 64 entries take one
+ * mask word per term, and the entries covering a weight key are the bit count
+ * of its mask. Scores are bit-for-bit those of MergePantryScorer; the weighted
+ * sum is accumulated in the same order.
+ *
+ * The masks span the whole dictionary, so the array is borrowed from the
+ * thread that prepares the scorer and handed back on release, with only the
+ * pantry's terms cleared, rather than allocated for every ranking. Only
+ * arrays of up to one mask word per term are kept, so a thread holds at most
+ * one long per term of the current dictionary; larger pantries and arrays
+ * sized for an older, bigger dictionary are left to the garbage collector.
+ */
+final class BitsetPantryScorer implements PantryScorer {
+    // Per-thread masks reused across rankings; always left cleared when handed back
+    private static final ThreadLocal<long[]> MASKS = ThreadLocal.withInitial(() -> new long[0]);
+    private static final int MAX_KEPT_WORDS = 1;
+
+    private final int words;
+    private final int dictionarySize;
+    private final int[][] pantryTermIds;
+    private final long[] masks;
+    private final int[] ingredientCounts;
+    private final int[] termOffsets;
+    private final int[] flatTermIds;
+    private final int[] weightOffsets;
+    private final int[] flatWeightIds;
+    private final double[] flatWeightValues;
+
+    BitsetPantryScorer(RecipeCatalog catalog, int[][] pantryTermIds) {
+        this.words = Math.max(1, (pantryTermIds.length + 63) >>> 6);
+        this.pantryTermIds = pantryTermIds;
+        this.dictionarySize = catalog.getDictionary().size();
+        long[] borrowed = MASKS.get();
+        int length = dictionarySize * words;
+        if (borrowed.length < length) {
+            borrowed = new long[length];
+        }
+        // A scorer prepared before this one is released allocates its own
+        MASKS.set(new long[0]);
+        this.masks = borrowed;
+        for (int entry = 0; entry < pantryTermIds.length; entry++) {
+            long bit = 1L << entry;
+            int word = entry >>> 6;
+            for (int termId : pantryTermIds[entry]) {
+                masks[termId * words + word] |= bit;
+            }
+        }
+        this.ingredientCounts = catalog.getIngredientCounts();
+        this.termOffsets = catalog.getTermOffsets();
+        this.flatTermIds = catalog.getFlatTermIds();
+        this.weightOffsets = catalog.getWeightOffsets();
+        this.flatWeightIds = catalog.getFlatWeightIds();
+        this.flatWeightValues = catalog.getFlatWeightValues();
+    }
+
+    @Override
+    public double score(int position) {
+        int ingredientCount = ingredientCounts[position];
+        if (ingredientCount == 0) {
+            return 0.0;
+        }
+
+        int start = termOffsets[position];
+        int end = termOffsets[position + 1];
+        int matchCount = 0;
+        if (words == 1) {
+            long covered = 0;
+            for (int i = start; i < end; i++) {
+                covered |= masks[flatTermIds[i]];
+            }
+            matchCount = Long.bitCount(covered);
+        } else {
+            for (int word = 0; word < words; word++) {
+                long covered = 0;
+                for (int i = start; i < end; i++) {
+                    covered |= masks[flatTermIds[i] * words + word];
+                }
+                matchCount += Long.bitCount(covered);
+            }
+        }
+        double score = (double) matchCount / ingredientCount;
+
+        int weightStart = weightOffsets[position];
+        int weightEnd = weightOffsets[position + 1];
+        if (weightEnd > weightStart) {
+            // Each weight times the pantry entries covering it, in recipe order, as the merge scorer adds them
+            double weightedScore = 0.0;
+            for (int j = weightStart; j < weightEnd; j++) {
+                int covering = 0;
+                for (int word = 0; word < words; word++) {
+                    covering += Long.bitCount(masks[flatWeightIds[j] * words + word]);
+                }
+                if (covering > 0) {
+                    weightedScore += covering * flatWeightValues[j];
+                }
+            }
+            score = (score + weightedScore) / 2;
+        }
+
+        return score;
+    }
+
+    /**
+     * Clear the pantry's terms and hand the masks back to the thread that
+     * prepared this scorer, which must be the calling thread, unless they
+     * are over the size a thread keeps
+     */
+    @Override
+    public void release() {
+        for (int[] termIds : pantryTermIds) {
+            for (int termId : termIds) {
+                for (int word = 0; word < words; word++) {
+                    masks[termId * words + word] = 0L;
+                }
+            }
+        }
+        if (masks.length > MASKS.get().length && masks.length <= (long) dictionarySize * MAX_KEPT_WORDS) {
+            MASKS.set(masks);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.leftoverchef.backend.service;
+
+import com.leftoverchef.backend.model.IngredientSuggestion;
+import com.leftoverchef.backend.util.AhoCorasickMatcher;
+import com.leftoverchef.backend.util.IngredientWeightCalculator;
+import com.leftoverchef.backend.util.IntIntHashMap;
+import com.leftoverchef.backend.util.TopKSelector;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * How many recipes use each pair of ingredients, as one sparse row of
+ * primitive counts per ingredient. Ingredients are keyed on the name a line
+ * gives them, without its amount and unit, so "2 onions" and "1 onion" count
+ * as one ingredient and suggestions come back as names rather than lines.
+ * Names are the "terms" below, and get IDs of their own that outlive any one
+ * catalog, so a reload only applies the recipes that were added or removed:
+ * the matrix keeps, per distinct ingredient set it has applied, a 64-bit hash
+ * of the set, the set's term IDs and how many recipes use it, and diffs the
+ * new catalog's set hashes against them. Counts brought back to zero are
+ * removed, and a term no applied recipe uses any more gives up its ID for
+ * the next new term. Queries take a read lock and only touch the rows of the
+ * pantry's terms, reading only the entries each row holds.
+ */
+final class CooccurrenceMatrix {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // A pantry item stands for at most this many terms containing it
+    static final int MAX_TERMS_PER_ITEM = 5;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<IntIntHashMap> rows = new ArrayList<>();
+    private final IntIntHashMap termRecipes = new IntIntHashMap();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private final Map<Long, AppliedSet> appliedSets = new LinkedHashMap<>();
+
+    /**
+     * Bring the matrix in line with a catalog and return how many recipes
+     * were applied or taken back to get there
+     */
+    int update(RecipeCatalog catalog) {
+        IngredientDictionary dictionary = catalog.getDictionary();
+        Map<String, Integer> nameIds = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int[] nameOf = new int[dictionary.size()];
+        for (int id = 0; id < nameOf.length; id++) {
+            nameOf[id] = nameIds.computeIfAbsent(IngredientWeightCalculator.ingredientName(dictionary.term(id)), name -> {
+                names.add(name);
+                return names.size() - 1;
+            });
+        }
+        long[] nameHashes = new long[names.size()];
+        for (int id = 0; id < nameHashes.length; id++) {
+            nameHashes[id] = termHash(names.get(id));
+        }
+        int[] recipeNames = new int[16];
+
+        int[] termOffsets = catalog.getTermOffsets();
+        int[] flatTermIds = catalog.getFlatTermIds();
+        int changed = 0;
+        lock.writeLock().lock();
+        try {
+            // Catalog order, so terms get matrix IDs in the order the catalog first uses them
+            for (int position = 0; position < catalog.size(); position++) {
+                int start = termOffsets[position];
+                int end = termOffsets[position + 1];
+                if (recipeNames.length < end - start) {
+                    recipeNames = new int[end - start];
+                }
+                for (int i = start; i < end; i++) {
+                    recipeNames[i - start] = nameOf[flatTermIds[i]];
+                }
+                int count = distinct(recipeNames, end - start);
+                if (count < 2) {
+                    continue;
+                }
+                // A sum of name hashes does not depend on the order the IDs come in
+                long hash = 0;
+                for (int i = 0; i < count; i++) {
+                    hash += nameHashes[recipeNames[i]];
+                }
+                AppliedSet set = appliedSets.get(hash);
+                if (set == null) {
+                    set = new AppliedSet(matrixIds(names, recipeNames, count));
+                    appliedSets.put(hash, set);
+                }
+                set.recipes++;
+            }
+
+            List<Integer> emptied = new ArrayList<>();
+            for (Iterator<AppliedSet> sets = appliedSets.values().iterator(); sets.hasNext(); ) {
+                AppliedSet set = sets.next();
+                int delta = set.recipes - set.applied;
+                if (delta != 0) {
+                    apply(set.termIds, delta, emptied);
+                    changed += Math.abs(delta);
+                }
+                if (set.recipes == 0) {
+                    sets.remove();
+                } else {
+                    set.applied = set.recipes;
+                    set.recipes = 0;
+                }
+            }
+            for (int id : emptied) {
+                release(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return changed;
+    }
+
+    /**
+     * The k terms appearing most often alongside a pantry, summed over the
+     * terms its lowercased items stand for, leaving out every term an item
+     * covers. An item stands for the term equal to it, or else the
+     * MAX_TERMS_PER_ITEM terms containing it that the most recipes use, so a
+     * short item such as "salt" does not pull in every term mentioning it.
+     * Ties go to the lower matrix ID, which is the term seen first unless its
+     * ID was reused.
+     */
+    List<IngredientSuggestion> suggest(List<String> pantryItems, int k) {
+        lock.readLock().lock();
+        try {
+            List<String> items = new ArrayList<>(new LinkedHashSet<>(pantryItems));
+            AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(items);
+            TopKSelector[] itemTerms = new TopKSelector[items.size()];
+            for (int item = 0; item < itemTerms.length; item++) {
+                itemTerms[item] = new TopKSelector(MAX_TERMS_PER_ITEM);
+            }
+            Set<Integer> covered = new HashSet<>();
+            int[] lastMatched = new int[items.size()];
+            Arrays.fill(lastMatched, -1);
+            for (int id = 0; id < terms.size(); id++) {
+                String term = terms.get(id);
+                if (term == null) {
+                    continue;
+                }
+                int termId = id;
+                matcher.forEachMatch(term, item -> {
+                    if (lastMatched[item] == termId) {
+                        return;
+                    }
+                    lastMatched[item] = termId;
+                    covered.add(termId);
+                    boolean exact = term.length() == items.get(item).length();
+                    itemTerms[item].offer(termId, exact ? Double.POSITIVE_INFINITY : termRecipes.get(termId));
+                });
+            }
+
+            IntIntHashMap totals = new IntIntHashMap();
+            Set<Integer> pantryIds = new HashSet<>();
+            for (TopKSelector selected : itemTerms) {
+                selected.sort();
+                boolean exact = selected.size() > 0 && selected.score(0) == Double.POSITIVE_INFINITY;
+                for (int rank = 0; rank < (exact ? 1 : selected.size()); rank++) {
+                    pantryIds.add(selected.id(rank));
+                }
+            }
+            for (int id : pantryIds) {
+                IntIntHashMap row = rows.get(id);
+                for (int entry = 0; entry < row.size(); entry++) {
+                    int other = row.keyAt(entry);
+                    if (!covered.contains(other)) {
+                        totals.add(other, row.valueAt(entry));
+                    }
+                }
+            }
+
+            TopKSelector top = new TopKSelector(k);
+            for (int entry = 0; entry < totals.size(); entry++) {
+                top.offer(totals.keyAt(entry), totals.valueAt(entry));
+            }
+            top.sort();
+            List<IngredientSuggestion> suggestions = new ArrayList<>(top.size());
+            for (int rank = 0; rank < top.size(); rank++) {
+                suggestions.add(new IngredientSuggestion(terms.get(top.id(rank)), (int) top.score(rank)));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of terms some applied recipe uses
+     */
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return termIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Matrix IDs of the first count of a recipe's names, giving new names a
+     * free ID or the next one
+     */
+    private int[] matrixIds(List<String> names, int[] ids, int count) {
+        int[] matrixIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            matrixIds[i] = termIds.computeIfAbsent(names.get(ids[i]), term -> {
+                Integer free = freeIds.pollFirst();
+                if (free != null) {
+                    terms.set(free, term);
+                    rows.set(free, new IntIntHashMap());
+                    return free;
+                }
+                terms.add(term);
+                rows.add(new IntIntHashMap());
+                return terms.size() - 1;
+            });
+        }
+        return matrixIds;
+    }
+
+    /**
+     * Add delta to every pair of the set, removing counts that reach zero and
+     * noting terms whose row is left empty
+     */
+    private void apply(int[] ids, int delta, List<Integer> emptied) {
+        for (int i = 0; i < ids.length; i++) {
+            if (termRecipes.add(ids[i], delta) == 0) {
+                termRecipes.remove(ids[i]);
+            }
+            IntIntHashMap row = rows.get(ids[i]);
+            for (int j = 0; j < ids.length; j++) {
+                if (i != j && row.add(ids[j], delta) == 0) {
+                    row.remove(ids[j]);
+                }
+            }
+            if (row.size() == 0) {
+                emptied.add(ids[i]);
+            }
+        }
+    }
+
+    /**
+     * Free the ID of a term whose row is still empty; every applied set has
+     * two terms or more, so no applied recipe uses it
+     */
+    private void release(int id) {
+        String term = terms.get(id);
+        if (term == null || rows.get(id).size() > 0) {
+            return;
+        }
+        termIds.remove(term);
+        terms.set(id, null);
+        rows.set(id, null);
+        freeIds.addLast(id);
+    }
+
+    /**
+     * Sort the first count IDs and move the distinct ones to the front,
+     * returning how many there are
+     */
+    private static int distinct(int[] ids, int count) {
+        Arrays.sort(ids, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * 64-bit FNV-1a of the term's UTF-8 bytes, finished with the SplitMix64
+     * mixer so sums of hashes spread over all 64 bits
+     */
+    private static long termHash(String term) {
+        long hash = FNV_OFFSET;
+        for (byte b : term.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * One distinct ingredient set: its matrix term IDs, how many recipes of
+     * the applied catalogs use it, and how many of the catalog being applied do
+     */
+    private static final class AppliedSet {
+        private final int[] termIds;
+        private int applied;
+        private int recipes;
+
+        private AppliedSet(int[] termIds) {
+            this.termIds = termIds;
+        }
+    }
+}
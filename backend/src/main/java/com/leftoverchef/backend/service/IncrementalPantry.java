@@ -0,0 +1,247 @@
+package com.leftoverchef.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A stored pantry that keeps its ranking up to date as items come and go.
+ * Every recipe sharing a term with the pantry has its match count and score
+ * held in a set ordered best first. Adding or removing an item only touches
+ * the recipes in the postings of that item's terms, so an update costs time
+ * in the length of those postings, not in the size of the catalog. Each of
+ * those recipes also keeps how many items cover each of its weight keys, so
+ * its weighted sum is adjusted by the changed item alone instead of being
+ * added up again over the whole pantry. Scores are those PantryScorer gives
+ * the same pantry. Callers synchronize on the instance.
+ */
+final class IncrementalPantry {
+    private RecipeCatalog catalog;
+    // Sorted items, repeats kept, with the term IDs each one covers
+    private final List<String> items = new ArrayList<>();
+    private final List<int[]> itemTermIds = new ArrayList<>();
+    private final Map<Integer, Match> matches = new HashMap<>();
+    private final TreeSet<Match> ranked = new TreeSet<>((a, b) -> {
+        int byScore = Double.compare(b.score, a.score);
+        return byScore != 0 ? byScore : Integer.compare(a.position, b.position);
+    });
+    IncrementalPantry(RecipeCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Rank against a new catalog, re-adding every item, when the given one has
+     * replaced the catalog the pantry was built on
+     */
+    void use(RecipeCatalog current) {
+        if (current == catalog) {
+            return;
+        }
+        List<String> previous = new ArrayList<>(items);
+        catalog = current;
+        clear();
+        for (String item : previous) {
+            add(item);
+        }
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    List<String> getItems() {
+        return Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    void clear() {
+        items.clear();
+        itemTermIds.clear();
+        matches.clear();
+        ranked.clear();
+    }
+
+    /**
+     * Add one preprocessed item; a repeated item counts again, as it does in
+     * a pantry sent with a request
+     */
+    void add(String item) {
+        int[] termIds = catalog.encodePantry(Collections.singletonList(item))[0];
+        int at = Collections.binarySearch(items, item);
+        int index = at >= 0 ? at : -at - 1;
+        items.add(index, item);
+        itemTermIds.add(index, termIds);
+        update(termIds, 1);
+    }
+
+    /**
+     * Remove one occurrence of a preprocessed item; returns false when the
+     * pantry does not hold it
+     */
+    boolean remove(String item) {
+        int at = Collections.binarySearch(items, item);
+        if (at < 0) {
+            return false;
+        }
+        items.remove(at);
+        int[] termIds = itemTermIds.remove(at);
+        update(termIds, -1);
+        return true;
+    }
+
+    /**
+     * Catalog positions and scores of the k best recipes, ties going to the
+     * earliest; recipes the pantry shares nothing with score zero, and the
+     * first of them in catalog order fill the list when fewer than k score.
+     */
+    TopRecipes top(int k) {
+        int size = Math.min(k, catalog.size());
+        int[] positions = new int[size];
+        double[] scores = new double[size];
+        int count = 0;
+        for (Match match : ranked) {
+            if (count == size) {
+                break;
+            }
+            positions[count] = match.position;
+            scores[count++] = match.score;
+        }
+        for (int position = 0; count < size && position < catalog.size(); position++) {
+            Match match = matches.get(position);
+            if (match == null || match.score <= 0.0) {
+                positions[count++] = position;
+            }
+        }
+        return new TopRecipes(positions, scores);
+    }
+
+    /**
+     * Apply an item's match count change to the recipes using its terms as
+     * ingredients, then rescore them and any recipe weighing one of its terms
+     */
+    private void update(int[] termIds, int delta) {
+        RecipeIndex.TermCounts using = catalog.getIngredientIndex().countTerms(termIds);
+        if (catalog.getIndex() == catalog.getIngredientIndex()) {
+            for (int i = 0; i < using.size(); i++) {
+                rescore(using.position(i), termIds, delta, delta);
+            }
+            return;
+        }
+        // Weight keys that are not ingredients change scores without changing counts
+        RecipeIndex.TermCounts scored = catalog.getIndex().countTerms(termIds);
+        int next = 0;
+        for (int i = 0; i < scored.size(); i++) {
+            int position = scored.position(i);
+            while (next < using.size() && using.position(next) < position) {
+                next++;
+            }
+            boolean uses = next < using.size() && using.position(next) == position;
+            rescore(position, termIds, uses ? delta : 0, delta);
+        }
+    }
+
+    /**
+     * Apply an item's change to one recipe: countDelta to its match count and
+     * delta to each of its weight keys the item's terms cover
+     */
+    private void rescore(int position, int[] termIds, int countDelta, int delta) {
+        Match match = matches.get(position);
+        if (match == null) {
+            match = new Match(position,
+                catalog.getWeightOffsets()[position + 1] - catalog.getWeightOffsets()[position]);
+        } else if (match.score > 0.0) {
+            ranked.remove(match);
+        }
+        match.count += countDelta;
+        int[] flatWeightIds = catalog.getFlatWeightIds();
+        int weightStart = catalog.getWeightOffsets()[position];
+        for (int i = 0; i < match.covering.length; i++) {
+            if (Arrays.binarySearch(termIds, flatWeightIds[weightStart + i]) >= 0) {
+                match.covering[i] += delta;
+                match.covered += delta;
+            }
+        }
+        match.score = score(position, match);
+
+        if (match.count > 0 || match.covered > 0) {
+            matches.put(position, match);
+            if (match.score > 0.0) {
+                ranked.add(match);
+            }
+        } else {
+            matches.remove(position);
+        }
+    }
+
+    /**
+     * The PantryScorer formula from the recipe's held counts, with the
+     * weighted sum added up in the same order so scores are bit-for-bit equal
+     */
+    private double score(int position, Match match) {
+        int ingredientCount = catalog.getIngredientCounts()[position];
+        if (ingredientCount == 0) {
+            return 0.0;
+        }
+        double score = (double) match.count / ingredientCount;
+
+        if (match.covering.length > 0) {
+            double[] flatWeightValues = catalog.getFlatWeightValues();
+            int weightStart = catalog.getWeightOffsets()[position];
+            double weightedScore = 0.0;
+            for (int i = 0; i < match.covering.length; i++) {
+                if (match.covering[i] > 0) {
+                    weightedScore += match.covering[i] * flatWeightValues[weightStart + i];
+                }
+            }
+            score = (score + weightedScore) / 2;
+        }
+        return score;
+    }
+
+    /**
+     * A recipe's pantry items matching its ingredients, items covering each
+     * of its weight keys and their total, and its score
+     */
+    private static final class Match {
+        private static final int[] NO_WEIGHTS = new int[0];
+
+        private final int position;
+        private final int[] covering;
+        private int count;
+        private int covered;
+        private double score;
+
+        private Match(int position, int weightCount) {
+            this.position = position;
+            this.covering = weightCount > 0 ? new int[weightCount] : NO_WEIGHTS;
+        }
+    }
+
+    /**
+     * Catalog positions and scores, best first, as parallel arrays
+     */
+    static final class TopRecipes {
+        private final int[] positions;
+        private final double[] scores;
+
+        private TopRecipes(int[] positions, double[] scores) {
+            this.positions = positions;
+            this.scores = scores;
+        }
+
+        int size() {
+            return positions.length;
+        }
+
+        int position(int rank) {
+            return positions[rank];
+        }
+
+        double score(int rank) {
+            return scores[rank];
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.leftoverchef.backend.service;
+
+import com.leftoverchef.backend.util.AhoCorasickMatcher;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Dense integer IDs for the distinct lowercased ingredient terms of a catalog.
+ * IDs are assigned in first-seen order and shared by every catalog index.
+ */
+final class IngredientDictionary {
+    private final Map<String, Integer> ids;
+    private final String[] terms;
+
+    private IngredientDictionary(Map<String, Integer> ids, String[] terms) {
+        this.ids = ids;
+        this.terms = terms;
+    }
+
+    /**
+     * A dictionary of distinct lowercased terms, each term's ID being its index
+     */
+    static IngredientDictionary of(String[] terms) {
+        Map<String, Integer> ids = new HashMap<>(terms.length * 2);
+        for (int id = 0; id < terms.length; id++) {
+            ids.put(terms[id], id);
+        }
+        return new IngredientDictionary(ids, terms);
+    }
+
+    /**
+     * ID of the given lowercased term, or -1 if the catalog never uses it
+     */
+    int idOf(String term) {
+        Integer id = ids.get(term);
+        return id != null ? id : -1;
+    }
+
+    String term(int id) {
+        return terms[id];
+    }
+
+    int size() {
+        return terms.length;
+    }
+
+    /**
+     * For each lowercased fragment, the ascending IDs of every term containing
+     * it, matching the substring semantics of recipe scoring. The fragments are
+     * compiled into one automaton so every term is scanned once, however many
+     * fragments there are.
+     */
+    int[][] idsContaining(List<String> fragments) {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(fragments);
+        FragmentMatches matches = new FragmentMatches(fragments.size());
+        for (int id = 0; id < terms.length; id++) {
+            matches.termId = id;
+            matcher.forEachMatch(terms[id], matches);
+        }
+        return matches.toArrays();
+    }
+
+    /**
+     * Collects term IDs per fragment; a term is recorded once per fragment even
+     * when the fragment occurs in it several times.
+     */
+    private static final class FragmentMatches implements IntConsumer {
+        private final int[][] ids;
+        private final int[] counts;
+        private int termId;
+
+        private FragmentMatches(int fragmentCount) {
+            ids = new int[fragmentCount][8];
+            counts = new int[fragmentCount];
+        }
+
+        @Override
+        public void accept(int fragment) {
+            int count = counts[fragment];
+            if (count > 0 && ids[fragment][count - 1] == termId) {
+                return;
+            }
+            if (count == ids[fragment].length) {
+                ids[fragment] = Arrays.copyOf(ids[fragment], count * 2);
+            }
+            ids[fragment][count] = termId;
+            counts[fragment] = count + 1;
+        }
+
+        private int[][] toArrays() {
+            int[][] result = new int[ids.length][];
+            for (int i = 0; i < ids.length; i++) {
+                result[i] = Arrays.copyOf(ids[i], counts[i]);
+            }
+            return result;
+        }
+    }
+
+    static final class Builder {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> terms = new ArrayList<>();
+
+        /**
+         * Add a lowercased term if it is new and return its ID
+         */
+        int add(String term) {
+            Integer id = ids.get(term);
+            if (id == null) {
+                id = terms.size();
+                ids.put(term, id);
+                terms.add(term);
+            }
+            return id;
+        }
+
+        IngredientDictionary build() {
+            return new IngredientDictionary(ids, terms.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.leftoverchef.backend.service;
+
+import java.util.Arrays;
+
+/**
+ * Scores by merging each pantry item's sorted term IDs against the recipe's
+ * sorted ingredient IDs, and binary searching them for each weight key.
+ */
+final class MergePantryScorer implements PantryScorer {
+    private final int[][] pantryTermIds;
+    private final int[] ingredientCounts;
+    private final int[] termOffsets;
+    private final int[] flatTermIds;
+    private final int[] weightOffsets;
+    private final int[] flatWeightIds;
+    private final double[] flatWeightValues;
+
+    MergePantryScorer(RecipeCatalog catalog, int[][] pantryTermIds) {
+        this.pantryTermIds = pantryTermIds;
+        this.ingredientCounts = catalog.getIngredientCounts();
+        this.termOffsets = catalog.getTermOffsets();
+        this.flatTermIds = catalog.getFlatTermIds();
+        this.weightOffsets = catalog.getWeightOffsets();
+        this.flatWeightIds = catalog.getFlatWeightIds();
+        this.flatWeightValues = catalog.getFlatWeightValues();
+    }
+
+    @Override
+    public double score(int position) {
+        int ingredientCount = ingredientCounts[position];
+        if (ingredientCount == 0) {
+            return 0.0;
+        }
+
+        int start = termOffsets[position];
+        int end = termOffsets[position + 1];
+        int matchCount = 0;
+        for (int[] termIds : pantryTermIds) {
+            if (intersects(termIds, flatTermIds, start, end)) {
+                matchCount++;
+            }
+        }
+        double score = (double) matchCount / ingredientCount;
+        
+        // Enhance scoring by considering ingredient weights
+        int weightStart = weightOffsets[position];
+        int weightEnd = weightOffsets[position + 1];
+        if (weightEnd > weightStart) {
+            // Each weight times the pantry entries covering it, in recipe order
+            double weightedScore = 0.0;
+            for (int i = weightStart; i < weightEnd; i++) {
+                int covering = 0;
+                for (int[] termIds : pantryTermIds) {
+                    if (Arrays.binarySearch(termIds, flatWeightIds[i]) >= 0) {
+                        covering++;
+                    }
+                }
+                if (covering > 0) {
+                    weightedScore += covering * flatWeightValues[i];
+                }
+            }
+            score = (score + weightedScore) / 2;
+        }
+        
+        return score;
+    }
+
+    /**
+     * Whether sortedA shares an ID with sortedB[from, to)
+     */
+    private static boolean intersects(int[] sortedA, int[] sortedB, int from, int to) {
+        int i = 0;
+        int j = from;
+        while (i < sortedA.length && j < to) {
+            if (sortedA[i] == sortedB[j]) {
+                return true;
+            }
+            if (sortedA[i] < sortedB[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return false;
+    }
+}
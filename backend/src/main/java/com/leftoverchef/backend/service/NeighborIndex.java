@@ -0,0 +1,72 @@
+package com.leftoverchef.backend.service;
+
+import com.leftoverchef.backend.util.TopKSelector;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The most similar recipes to each recipe by the exact Jaccard similarity of
+ * their ingredient sets, so "something like the last one" is a lookup. A
+ * recipe's neighbors are found the first time they are asked for, by
+ * count-merging the postings of its ingredients, which costs about as much
+ * as ranking one pantry; every later lookup of that recipe is free. Working
+ * them out for the whole catalog up front would cost a merge per recipe at
+ * every reload, most of them never used. Neighbors are ordered by
+ * similarity, ties going to the earliest in the catalog, and share at least
+ * one ingredient with the recipe.
+ */
+final class NeighborIndex {
+    static final int NEIGHBORS_PER_RECIPE = 10;
+
+    private final RecipeIndex ingredientIndex;
+    private final int[] termOffsets;
+    private final int[] flatTermIds;
+    private final AtomicReferenceArray<int[]> neighbors;
+
+    /**
+     * Over the catalog's flat ingredient IDs, recipe p's being
+     * flatTermIds[termOffsets[p], termOffsets[p + 1])
+     */
+    NeighborIndex(RecipeIndex ingredientIndex, int[] termOffsets, int[] flatTermIds) {
+        this.ingredientIndex = ingredientIndex;
+        this.termOffsets = termOffsets;
+        this.flatTermIds = flatTermIds;
+        this.neighbors = new AtomicReferenceArray<>(termOffsets.length - 1);
+    }
+
+    /**
+     * Catalog positions of up to NEIGHBORS_PER_RECIPE recipes most similar to
+     * the one at a position, most similar first
+     */
+    int[] neighbors(int position) {
+        int[] nearest = neighbors.get(position);
+        if (nearest == null) {
+            // Racing threads compute the same list, so either may win
+            nearest = compute(position);
+            neighbors.set(position, nearest);
+        }
+        return nearest;
+    }
+
+    private int[] compute(int position) {
+        int termCount = termOffsets[position + 1] - termOffsets[position];
+        RecipeIndex.TermCounts candidates =
+            ingredientIndex.countTerms(flatTermIds, termOffsets[position], termOffsets[position + 1]);
+        TopKSelector nearest = new TopKSelector(NEIGHBORS_PER_RECIPE);
+        for (int i = 0; i < candidates.size(); i++) {
+            int candidate = candidates.position(i);
+            if (candidate != position) {
+                // The merged count is the intersection size
+                int shared = candidates.count(i);
+                nearest.offer(candidate,
+                    (double) shared / (termCount + termOffsets[candidate + 1] - termOffsets[candidate] - shared));
+            }
+        }
+        nearest.sort();
+        int[] positions = new int[nearest.size()];
+        for (int rank = 0; rank < positions.length; rank++) {
+            positions[rank] = nearest.id(rank);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,96 @@
+package com.leftoverchef.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catalog positions sorted by a numeric column, so the recipes whose value
+ * falls in a range are found by binary search and read off as one contiguous
+ * run. Recipes missing the value (NaN) are left out.
+ */
+final class NumericIndex {
+    private final int[] positions;
+    private final double[] values;
+
+    private NumericIndex(int[] positions, double[] values) {
+        this.positions = positions;
+        this.values = values;
+    }
+
+    static NumericIndex build(double[] column) {
+        List<Integer> present = new ArrayList<>();
+        for (int position = 0; position < column.length; position++) {
+            if (!Double.isNaN(column[position])) {
+                present.add(position);
+            }
+        }
+        // Stable, so equal values keep catalog order
+        present.sort((a, b) -> Double.compare(column[a], column[b]));
+
+        int[] positions = new int[present.size()];
+        double[] values = new double[present.size()];
+        for (int rank = 0; rank < positions.length; rank++) {
+            positions[rank] = present.get(rank);
+            values[rank] = column[positions[rank]];
+        }
+        return new NumericIndex(positions, values);
+    }
+
+    /**
+     * An index over positions already sorted by their values, as
+     * getPositions() and getValues() return them
+     */
+    static NumericIndex wrap(int[] positions, double[] values) {
+        return new NumericIndex(positions, values);
+    }
+
+    int[] getPositions() {
+        return positions;
+    }
+
+    double[] getValues() {
+        return values;
+    }
+
+    int size() {
+        return positions.length;
+    }
+
+    int position(int rank) {
+        return positions[rank];
+    }
+
+    /**
+     * First rank whose value is at least min
+     */
+    int firstAtLeast(double min) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * One past the last rank whose value is at most max
+     */
+    int endAtMost(double max) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= max) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,23 @@
+package com.leftoverchef.backend.service;
+
+/**
+ * Scores catalog recipes against one encoded pantry. An instance is prepared
+ * once per ranking and only read while scoring, so chunks of one candidate
+ * array can be scored on different threads.
+ */
+interface PantryScorer {
+
+    /**
+     * Share of the recipe's ingredients covered by the pantry, averaged with the
+     * summed weights of the recipe's weighted ingredients the pantry covers.
+     * A pantry item covers an ingredient when the ingredient contains it.
+     */
+    double score(int position);
+
+    /**
+     * Hand back any scratch memory the scorer borrowed, once the ranking is
+     * done; it must not score afterwards
+     */
+    default void release() {
+    }
+}
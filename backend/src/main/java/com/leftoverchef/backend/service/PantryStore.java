@@ -0,0 +1,34 @@
+package com.leftoverchef.backend.service;
+
+/**
+ * Per-session stored pantries. Like SessionRotationStore, they are held in a
+ * SessionMap, which evicts pantries idle for longer than the TTL and never
+ * holds more than maxSessions of them, dropping the least recently used when
+ * full.
+ */
+final class PantryStore {
+    private final SessionMap<IncrementalPantry> pantries;
+
+    PantryStore(long ttlMillis, int maxSessions) {
+        pantries = new SessionMap<>(ttlMillis, maxSessions);
+    }
+
+    void configure(long ttlMillis, int maxSessions) {
+        pantries.configure(ttlMillis, maxSessions);
+    }
+
+    /**
+     * The session's pantry, created empty on first use
+     */
+    IncrementalPantry get(String sessionId, RecipeCatalog catalog) {
+        return pantries.get(sessionId, () -> new IncrementalPantry(catalog));
+    }
+
+    void clear() {
+        pantries.clear();
+    }
+
+    int size() {
+        return pantries.size();
+    }
+}
@@ -0,0 +1,120 @@
+package com.leftoverchef.backend.service;
+
+import com.leftoverchef.backend.util.TopKSelector;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Scores large candidate sets on a dedicated ForkJoinPool. The candidates are
+ * split into chunks, each chunk keeps its own top k, and the per-chunk results
+ * are merged pairwise on the way back up. The pool also ranks the pantries of
+ * a batch request side by side. Below the threshold the fork/join
+ * overhead outweighs the gain, so callers score sequentially instead; see
+ * RecipeScoringBenchmark for where the crossover lies.
+ */
+final class ParallelRecipeScorer {
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final int chunkSize;
+
+    ParallelRecipeScorer(int parallelism, int threshold, int chunkSize) {
+        if (parallelism < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("Parallelism and chunk size must be positive");
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Whether a candidate set is large enough to be worth splitting
+     */
+    boolean isWorthwhile(int candidateCount) {
+        return candidateCount >= threshold && candidateCount > chunkSize;
+    }
+
+    /**
+     * Same result as RecipeService.scoreCandidates over the whole array
+     */
+    TopKSelector score(RecipeCatalog catalog, PantryScorer scorer, int[] candidates, int k,
+                       SessionRotationStore.Rotation rotation) {
+        return pool.invoke(new ChunkTask(catalog, scorer, candidates, 0, candidates.length, k, rotation));
+    }
+
+    /**
+     * Run task for every index in [0, count) on the pool and wait for all of them
+     */
+    void forEach(int count, IntConsumer task) {
+        pool.invoke(new EachTask(task, 0, count));
+    }
+
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    private final class ChunkTask extends RecursiveTask<TopKSelector> {
+        private static final long serialVersionUID = 1L;
+
+        private final RecipeCatalog catalog;
+        private final PantryScorer scorer;
+        private final int[] candidates;
+        private final int from;
+        private final int to;
+        private final int k;
+        private final SessionRotationStore.Rotation rotation;
+
+        private ChunkTask(RecipeCatalog catalog, PantryScorer scorer, int[] candidates, int from, int to, int k,
+                          SessionRotationStore.Rotation rotation) {
+            this.catalog = catalog;
+            this.scorer = scorer;
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.rotation = rotation;
+        }
+
+        @Override
+        protected TopKSelector compute() {
+            if (to - from <= chunkSize) {
+                return RecipeService.scoreCandidates(catalog, scorer, candidates, from, to, k, rotation);
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(catalog, scorer, candidates, from, middle, k, rotation);
+            ChunkTask right = new ChunkTask(catalog, scorer, candidates, middle, to, k, rotation);
+            left.fork();
+            TopKSelector merged = right.compute();
+            merged.offerAll(left.join());
+            return merged;
+        }
+    }
+
+    private static final class EachTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer task;
+        private final int from;
+        private final int to;
+
+        private EachTask(IntConsumer task, int from, int to) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    task.accept(from);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new EachTask(task, from, middle), new EachTask(task, middle, to));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.leftoverchef.backend.service;
+
+/**
+ * Scores pantries that say how much of some items is left. The name-overlap
+ * score of the wrapped scorer is averaged with the share of the leftover
+ * pounds the recipe would use: each item with a quantity uses up to that
+ * quantity, limited by the estimated pounds of the recipe ingredients it
+ * covers. A recipe built around five pounds of chicken then outranks one
+ * that only needs a pinch of garlic. Ingredient pounds are read from the
+ * catalog's flat float array, merged against each item's sorted term IDs,
+ * so this costs about as much as the count score.
+ */
+final class QuantityPantryScorer implements PantryScorer {
+    private final PantryScorer scorer;
+    private final int[][] pantryTermIds;
+    private final double[] entryPounds;
+    private final double totalPounds;
+    private final int[] termOffsets;
+    private final int[] flatTermIds;
+    private final float[] flatTermPounds;
+
+    /**
+     * entryPounds holds the quantity of each pantry entry, NaN or zero for
+     * entries given without one; at least one must be positive
+     */
+    QuantityPantryScorer(RecipeCatalog catalog, PantryScorer scorer, int[][] pantryTermIds, double[] entryPounds) {
+        this.scorer = scorer;
+        this.pantryTermIds = pantryTermIds;
+        this.entryPounds = entryPounds;
+        double total = 0.0;
+        for (double pounds : entryPounds) {
+            if (pounds > 0.0) {
+                total += pounds;
+            }
+        }
+        this.totalPounds = total;
+        this.termOffsets = catalog.getTermOffsets();
+        this.flatTermIds = catalog.getFlatTermIds();
+        this.flatTermPounds = catalog.getFlatTermPounds();
+    }
+
+    @Override
+    public double score(int position) {
+        double score = scorer.score(position);
+        int start = termOffsets[position];
+        int end = termOffsets[position + 1];
+        double used = 0.0;
+        for (int entry = 0; entry < pantryTermIds.length; entry++) {
+            if (!(entryPounds[entry] > 0.0)) {
+                continue;
+            }
+            int[] termIds = pantryTermIds[entry];
+            double needed = 0.0;
+            int i = 0;
+            int j = start;
+            while (i < termIds.length && j < end) {
+                if (termIds[i] == flatTermIds[j]) {
+                    needed += flatTermPounds[j];
+                    i++;
+                    j++;
+                } else if (termIds[i] < flatTermIds[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            used += Math.min(entryPounds[entry], needed);
+        }
+        return (score + used / totalPounds) / 2;
+    }
+
+    @Override
+    public void release() {
+        scorer.release();
+    }
+}
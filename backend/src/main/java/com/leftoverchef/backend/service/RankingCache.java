@@ -0,0 +1,111 @@
+package com.leftoverchef.backend.service;
+
+import com.leftoverchef.backend.util.TopKSelector;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of rankings keyed by the normalized, sorted pantry. Each
+ * entry is the top of the full ranking for that pantry, independent of any
+ * session, so one entry serves every user sending the same pantry; session
+ * exclusions are applied by the caller afterwards. Entries remember the
+ * catalog version they were ranked against and are dropped once the catalog
+ * is replaced.
+ */
+final class RankingCache {
+    private final Map<List<String>, Ranking> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final int maxEntries;
+    private long catalogVersion = -1;
+
+    RankingCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<String>, Ranking> eldest) {
+                return size() > RankingCache.this.maxEntries;
+            }
+        };
+    }
+
+    boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    synchronized Ranking get(long catalogVersion, List<String> normalizedPantry) {
+        Ranking ranking = catalogVersion == this.catalogVersion ? entries.get(normalizedPantry) : null;
+        if (ranking != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return ranking;
+    }
+
+    synchronized void put(long catalogVersion, List<String> normalizedPantry, Ranking ranking) {
+        if (catalogVersion < this.catalogVersion) {
+            // Ranked against a catalog that has since been replaced
+            return;
+        }
+        if (catalogVersion > this.catalogVersion) {
+            entries.clear();
+            this.catalogVersion = catalogVersion;
+        }
+        entries.put(normalizedPantry, ranking);
+    }
+
+    synchronized void invalidate() {
+        entries.clear();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Immutable top of a ranking, best first
+     */
+    static final class Ranking {
+        private final int[] positions;
+        private final double[] scores;
+
+        private Ranking(int[] positions, double[] scores) {
+            this.positions = positions;
+            this.scores = scores;
+        }
+
+        static Ranking of(TopKSelector sorted) {
+            int[] positions = new int[sorted.size()];
+            double[] scores = new double[sorted.size()];
+            for (int rank = 0; rank < positions.length; rank++) {
+                positions[rank] = sorted.id(rank);
+                scores[rank] = sorted.score(rank);
+            }
+            return new Ranking(positions, scores);
+        }
+
+        int size() {
+            return positions.length;
+        }
+
+        int position(int rank) {
+            return positions[rank];
+        }
+
+        double score(int rank) {
+            return scores[rank];
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.leftoverchef.backend.service;
+
+import com.leftoverchef.backend.model.Recipe;
+import com.leftoverchef.backend.model.RecipeFilter;
+import com.leftoverchef.backend.util.IngredientWeightCalculator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compact, dictionary-encoded view of the recipe catalog. Built once when the
+ * recipes are loaded, or read back whole from a compiled catalog: every distinct ingredient gets an integer ID, each recipe
+ * keeps the sorted IDs of its cleaned ingredients, and ingredient weights are
+ * kept as parallel ID/value arrays. Requests then encode the pantry once and
+ * score against these arrays without touching ingredient strings. Estimated
+ * minutes and pounds are parsed once into numeric columns, NaN marking a
+ * missing or unparseable value, and indexed in sorted order for filtering.
+ * The ingredient IDs, ingredient counts and weights are also laid out flat
+ * across the catalog, one offset array per list, for the bitset scorer.
+ */
+final class RecipeCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(RecipeCatalog.class);
+    private static final int[] NO_IDS = new int[0];
+    private static final double[] NO_WEIGHTS = new double[0];
+    private static final AtomicLong NEXT_VERSION = new AtomicLong();
+
+    private final long version = NEXT_VERSION.incrementAndGet();
+
+    private final List<Recipe> recipes;
+    private final IngredientDictionary dictionary;
+    private final RecipeIndex index;
+    private final RecipeIndex ingredientIndex;
+    private final NeighborIndex neighbors;
+    private final double[] minutes;
+    private final double[] pounds;
+    private final NumericIndex minutesIndex;
+    private final NumericIndex poundsIndex;
+    private final int[] ingredientCounts;
+    private final int[] termOffsets;
+    private final int[] flatTermIds;
+    private final float[] flatTermPounds;
+    private final int[] weightOffsets;
+    private final int[] flatWeightIds;
+    private final double[] flatWeightValues;
+
+    /**
+     * A catalog over columns already built, by build() or read back from a
+     * compiled catalog. The recipe list may decode its recipes lazily; the
+     * catalog only reads it when a recipe is asked for.
+     */
+    RecipeCatalog(List<Recipe> recipes, IngredientDictionary dictionary, int[] ingredientCounts,
+                  int[] termOffsets, int[] flatTermIds, float[] flatTermPounds,
+                  int[] weightOffsets, int[] flatWeightIds, double[] flatWeightValues,
+                  double[] minutes, double[] pounds, NumericIndex minutesIndex, NumericIndex poundsIndex,
+                  RecipeIndex index, RecipeIndex ingredientIndex) {
+        this.recipes = recipes;
+        this.dictionary = dictionary;
+        this.ingredientCounts = ingredientCounts;
+        this.termOffsets = termOffsets;
+        this.flatTermIds = flatTermIds;
+        this.flatTermPounds = flatTermPounds;
+        this.weightOffsets = weightOffsets;
+        this.flatWeightIds = flatWeightIds;
+        this.flatWeightValues = flatWeightValues;
+        this.minutes = minutes;
+        this.pounds = pounds;
+        this.minutesIndex = minutesIndex;
+        this.poundsIndex = poundsIndex;
+        this.index = index;
+        this.ingredientIndex = ingredientIndex;
+        this.neighbors = new NeighborIndex(ingredientIndex, termOffsets, flatTermIds);
+    }
+
+    /**
+     * Encode the recipes and build the ingredient index. Repeated ingredient
+     * strings are replaced by a single shared instance and each recipe is
+     * given its sorted ingredient IDs.
+     */
+    static RecipeCatalog build(List<Recipe> recipes) {
+        IngredientDictionary.Builder dictionaryBuilder = new IngredientDictionary.Builder();
+        Map<String, String> canonicalStrings = new HashMap<>();
+        int[][] weightIds = new int[recipes.size()][];
+        double[][] weightValues = new double[recipes.size()][];
+        int[][] indexedIds = new int[recipes.size()][];
+        int[] ingredientCounts = new int[recipes.size()];
+        double[] minutes = new double[recipes.size()];
+        double[] pounds = new double[recipes.size()];
+        int unparseable = 0;
+        boolean weightOnlyTerms = false;
+
+        for (int position = 0; position < recipes.size(); position++) {
+            Recipe recipe = recipes.get(position);
+
+            int[] ingredientIds = NO_IDS;
+            List<String> cleanedIngredients = recipe.getCleanedIngredients();
+            if (cleanedIngredients != null && !cleanedIngredients.isEmpty()) {
+                String[] canonical = new String[cleanedIngredients.size()];
+                ingredientIds = new int[canonical.length];
+                int count = 0;
+                for (int i = 0; i < canonical.length; i++) {
+                    String ingredient = cleanedIngredients.get(i);
+                    if (ingredient == null) {
+                        continue;
+                    }
+                    canonical[i] = canonicalStrings.computeIfAbsent(ingredient, key -> key);
+                    ingredientIds[count++] = dictionaryBuilder.add(ingredient.toLowerCase());
+                }
+                ingredientIds = sortedDistinct(ingredientIds, count);
+                recipe.setCleanedIngredients(Collections.unmodifiableList(Arrays.asList(canonical)));
+                ingredientCounts[position] = canonical.length;
+            }
+            recipe.setIngredientIds(ingredientIds);
+
+            weightIds[position] = NO_IDS;
+            weightValues[position] = NO_WEIGHTS;
+            Map<String, Double> weights = recipe.getIngredientWeights();
+            if (weights != null && !weights.isEmpty()) {
+                int[] ids = new int[weights.size()];
+                double[] values = new double[weights.size()];
+                int count = 0;
+                for (Map.Entry<String, Double> entry : weights.entrySet()) {
+                    if (entry.getKey() == null || entry.getValue() == null) {
+                        continue;
+                    }
+                    ids[count] = dictionaryBuilder.add(entry.getKey().toLowerCase());
+                    values[count] = entry.getValue();
+                    count++;
+                }
+                weightIds[position] = Arrays.copyOf(ids, count);
+                weightValues[position] = Arrays.copyOf(values, count);
+            }
+
+            indexedIds[position] = union(ingredientIds, weightIds[position]);
+            weightOnlyTerms |= indexedIds[position].length > ingredientIds.length;
+
+            minutes[position] = parseAmount(recipe.getEstimatedTimeMinutes());
+            pounds[position] = parseAmount(recipe.getEstimatedPounds());
+            if (Double.isNaN(minutes[position]) && !isBlank(recipe.getEstimatedTimeMinutes())
+                || Double.isNaN(pounds[position]) && !isBlank(recipe.getEstimatedPounds())) {
+                unparseable++;
+            }
+        }
+        if (unparseable > 0) {
+            logger.warn("{} recipes have an estimated time or weight that is not a number; treating it as missing",
+                unparseable);
+        }
+
+        // Lay the ingredient IDs and weights out flat across the catalog
+        int[] termOffsets = new int[recipes.size() + 1];
+        int[] weightOffsets = new int[recipes.size() + 1];
+        int[][] ingredientIds = new int[recipes.size()][];
+        for (int position = 0; position < recipes.size(); position++) {
+            ingredientIds[position] = recipes.get(position).getIngredientIds();
+            termOffsets[position + 1] = termOffsets[position] + ingredientIds[position].length;
+            weightOffsets[position + 1] = weightOffsets[position] + weightIds[position].length;
+        }
+        int[] flatTermIds = new int[termOffsets[recipes.size()]];
+        int[] flatWeightIds = new int[weightOffsets[recipes.size()]];
+        double[] flatWeightValues = new double[weightOffsets[recipes.size()]];
+        for (int position = 0; position < recipes.size(); position++) {
+            System.arraycopy(ingredientIds[position], 0, flatTermIds, termOffsets[position],
+                ingredientIds[position].length);
+            System.arraycopy(weightIds[position], 0, flatWeightIds, weightOffsets[position], weightIds[position].length);
+            System.arraycopy(weightValues[position], 0, flatWeightValues, weightOffsets[position],
+                weightValues[position].length);
+        }
+
+        // Each distinct term is weighed once, then laid out alongside flatTermIds
+        IngredientDictionary dictionary = dictionaryBuilder.build();
+        float[] termPounds = new float[dictionary.size()];
+        Arrays.fill(termPounds, Float.NaN);
+        float[] flatTermPounds = new float[flatTermIds.length];
+        for (int i = 0; i < flatTermIds.length; i++) {
+            int termId = flatTermIds[i];
+            if (Float.isNaN(termPounds[termId])) {
+                termPounds[termId] = (float) IngredientWeightCalculator.calculateIngredientWeight(dictionary.term(termId));
+            }
+            flatTermPounds[i] = termPounds[termId];
+        }
+
+        RecipeIndex index = RecipeIndex.build(indexedIds, dictionary.size());
+        RecipeIndex ingredientIndex = weightOnlyTerms ? RecipeIndex.build(ingredientIds, dictionary.size()) : index;
+        return new RecipeCatalog(recipes, dictionary, ingredientCounts, termOffsets, flatTermIds, flatTermPounds,
+            weightOffsets, flatWeightIds, flatWeightValues, minutes, pounds,
+            NumericIndex.build(minutes), NumericIndex.build(pounds), index, ingredientIndex);
+    }
+
+    /**
+     * Identifies this build of the catalog; every build gets a new, larger version
+     */
+    long getVersion() {
+        return version;
+    }
+
+    List<Recipe> getRecipes() {
+        return recipes;
+    }
+
+    int size() {
+        return recipes.size();
+    }
+
+    Recipe get(int position) {
+        return recipes.get(position);
+    }
+
+    IngredientDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Postings of every term a recipe is scored on, its weight keys included
+     */
+    RecipeIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Postings of the cleaned ingredients alone; the same index as getIndex()
+     * unless some weight keys are not among their recipe's ingredients
+     */
+    RecipeIndex getIngredientIndex() {
+        return ingredientIndex;
+    }
+
+    /**
+     * Each recipe's most similar recipes by ingredient set
+     */
+    NeighborIndex getNeighbors() {
+        return neighbors;
+    }
+
+    /**
+     * Size of each recipe's cleaned ingredient list, the denominator of its score
+     */
+    int[] getIngredientCounts() {
+        return ingredientCounts;
+    }
+
+    /**
+     * Sorted ingredient IDs of recipe p are flatTermIds[termOffsets[p], termOffsets[p + 1])
+     */
+    int[] getTermOffsets() {
+        return termOffsets;
+    }
+
+    int[] getFlatTermIds() {
+        return flatTermIds;
+    }
+
+    /**
+     * Estimated pounds of each ingredient in flatTermIds, as IngredientWeightCalculator
+     * weighs the ingredient's text
+     */
+    float[] getFlatTermPounds() {
+        return flatTermPounds;
+    }
+
+    /**
+     * Weight keys and values of recipe p are at [weightOffsets[p], weightOffsets[p + 1])
+     * of the flat weight arrays, in the order of its weight map, with duplicate
+     * keys kept so each contributes its own weight
+     */
+    int[] getWeightOffsets() {
+        return weightOffsets;
+    }
+
+    int[] getFlatWeightIds() {
+        return flatWeightIds;
+    }
+
+    double[] getFlatWeightValues() {
+        return flatWeightValues;
+    }
+
+    /**
+     * Estimated minutes of the recipe at a position, or NaN when unknown
+     */
+    double getMinutes(int position) {
+        return minutes[position];
+    }
+
+    /**
+     * Estimated pounds of food the recipe at a position uses, or NaN when unknown
+     */
+    double getPounds(int position) {
+        return pounds[position];
+    }
+
+    NumericIndex getMinutesIndex() {
+        return minutesIndex;
+    }
+
+    NumericIndex getPoundsIndex() {
+        return poundsIndex;
+    }
+
+    /**
+     * Bitset over catalog positions of the recipes meeting the filter, or null
+     * when the filter does not constrain anything. Bounds come first, then
+     * each required item intersects the set with the postings of the terms
+     * containing it, and the postings of every excluded term are cleared from
+     * it. The cost follows the postings and the narrower bound range read,
+     * never the size of the catalog beyond one pass over the bitset.
+     */
+    long[] allowed(RecipeFilter filter) {
+        if (filter == null || filter.isEmpty()) {
+            return null;
+        }
+        long[] words = filter.hasBounds() ? withinBounds(filter) : null;
+
+        List<String> require = normalizeItems(filter.getRequire());
+        if (!require.isEmpty()) {
+            int[][] requiredTermIds = dictionary.idsContaining(require);
+            int[] offsets = ingredientIndex.getOffsets();
+            int[] positions = ingredientIndex.getPositions();
+            long[] using = new long[(size() + 63) >>> 6];
+            for (int[] termIds : requiredTermIds) {
+                Arrays.fill(using, 0L);
+                for (int termId : termIds) {
+                    for (int i = offsets[termId]; i < offsets[termId + 1]; i++) {
+                        using[positions[i] >>> 6] |= 1L << positions[i];
+                    }
+                }
+                if (words == null) {
+                    words = using.clone();
+                } else {
+                    for (int word = 0; word < words.length; word++) {
+                        words[word] &= using[word];
+                    }
+                }
+            }
+        }
+
+        List<String> exclude = normalizeItems(filter.getExclude());
+        if (!exclude.isEmpty()) {
+            if (words == null) {
+                words = new long[(size() + 63) >>> 6];
+                Arrays.fill(words, -1L);
+                if ((size() & 63) != 0) {
+                    words[words.length - 1] = (1L << size()) - 1;
+                }
+            }
+            int[] offsets = ingredientIndex.getOffsets();
+            int[] positions = ingredientIndex.getPositions();
+            for (int[] termIds : dictionary.idsContaining(exclude)) {
+                for (int termId : termIds) {
+                    for (int i = offsets[termId]; i < offsets[termId + 1]; i++) {
+                        words[positions[i] >>> 6] &= ~(1L << positions[i]);
+                    }
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * The most selective bound is read off its sorted index and the other
+     * bound checked per recipe, so the cost follows the number of recipes in
+     * the narrower range.
+     */
+    private long[] withinBounds(RecipeFilter filter) {
+        Double maxMinutes = filter.getMaxMinutes();
+        Double minPounds = filter.getMinPounds();
+        int minutesEnd = maxMinutes != null ? minutesIndex.endAtMost(maxMinutes) : Integer.MAX_VALUE;
+        int poundsStart = minPounds != null ? poundsIndex.firstAtLeast(minPounds) : Integer.MIN_VALUE;
+
+        long[] words = new long[(size() + 63) >>> 6];
+        if (maxMinutes != null && (minPounds == null || minutesEnd <= poundsIndex.size() - poundsStart)) {
+            for (int rank = 0; rank < minutesEnd; rank++) {
+                int position = minutesIndex.position(rank);
+                if (minPounds == null || pounds[position] >= minPounds) {
+                    words[position >>> 6] |= 1L << position;
+                }
+            }
+        } else {
+            for (int rank = poundsStart; rank < poundsIndex.size(); rank++) {
+                int position = poundsIndex.position(rank);
+                if (maxMinutes == null || minutes[position] <= maxMinutes) {
+                    words[position >>> 6] |= 1L << position;
+                }
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Lowercased, trimmed, non-empty and distinct filter items
+     */
+    private static List<String> normalizeItems(List<String> items) {
+        if (items == null || items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String item : items) {
+            if (item != null && !item.trim().isEmpty()) {
+                normalized.add(item.toLowerCase().trim());
+            }
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    /**
+     * Encode preprocessed pantry items: entry i holds the ascending IDs of every
+     * ingredient term containing item i. Repeated items share one entry.
+     */
+    int[][] encodePantry(List<String> userIngredients) {
+        return encodePantries(Collections.singletonList(userIngredients))[0];
+    }
+
+    /**
+     * Encode several preprocessed pantries with a single pass over the
+     * dictionary; an item appearing in several pantries is resolved once.
+     */
+    int[][][] encodePantries(List<List<String>> pantries) {
+        Map<String, Integer> distinctItems = new LinkedHashMap<>();
+        for (List<String> pantry : pantries) {
+            for (String item : pantry) {
+                distinctItems.putIfAbsent(item, distinctItems.size());
+            }
+        }
+        int[][] distinctTermIds = dictionary.idsContaining(new ArrayList<>(distinctItems.keySet()));
+        int[][][] encoded = new int[pantries.size()][][];
+        for (int p = 0; p < encoded.length; p++) {
+            List<String> pantry = pantries.get(p);
+            encoded[p] = new int[pantry.size()][];
+            for (int i = 0; i < pantry.size(); i++) {
+                encoded[p][i] = distinctTermIds[distinctItems.get(pantry.get(i))];
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Ascending distinct IDs of every term some item of an encoded pantry covers
+     */
+    static int[] coveredTerms(int[][] pantryTermIds) {
+        int total = 0;
+        for (int[] termIds : pantryTermIds) {
+            total += termIds.length;
+        }
+        int[] covered = new int[total];
+        int next = 0;
+        for (int[] termIds : pantryTermIds) {
+            System.arraycopy(termIds, 0, covered, next, termIds.length);
+            next += termIds.length;
+        }
+        return sortedDistinct(covered, total);
+    }
+
+    /**
+     * Parse a non-negative amount, or NaN when it is missing or not a number
+     */
+    private static double parseAmount(String value) {
+        if (isBlank(value)) {
+            return Double.NaN;
+        }
+        try {
+            double amount = Double.parseDouble(value.trim());
+            return amount >= 0 && !Double.isInfinite(amount) ? amount : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static int[] sortedDistinct(int[] ids, int count) {
+        Arrays.sort(ids, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+    }
+
+    private static int[] union(int[] sortedIds, int[] otherIds) {
+        if (otherIds.length == 0) {
+            return sortedIds;
+        }
+        int[] merged = Arrays.copyOf(sortedIds, sortedIds.length + otherIds.length);
+        System.arraycopy(otherIds, 0, merged, sortedIds.length, otherIds.length);
+        return sortedDistinct(merged, merged.length);
+    }
+}
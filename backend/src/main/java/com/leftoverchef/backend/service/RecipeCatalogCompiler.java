@@ -0,0 +1,76 @@
+package com.leftoverchef.backend.service;
+
+import com.leftoverchef.backend.model.Recipe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Command line step that compiles a JSON recipe catalog into the binary format
+ * read by {@link BinaryRecipeCatalog}: the recipes are loaded, deduplicated and
+ * indexed here, once, and the service maps the result at startup instead of
+ * repeating that work. Point recipe.data.file at the output. Run it from the
+ * packaged jar with
+ *
+ * <pre>
+ * java -cp backend.jar -Dloader.main=com.leftoverchef.backend.service.RecipeCatalogCompiler \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher recipes.json [recipes.bin [threshold]]
+ * </pre>
+ *
+ * The threshold is the near-duplicate threshold of recipe.dedup, 0.8 by
+ * default; 0 keeps near duplicates and drops only exact ones.
+ */
+public final class RecipeCatalogCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(RecipeCatalogCompiler.class);
+    static final double DEFAULT_NEAR_DUPLICATE_THRESHOLD = 0.8;
+
+    private RecipeCatalogCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: RecipeCatalogCompiler <recipes.json[.gz]> [output.bin [near-duplicate-threshold]]");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        Path output = args.length > 1 ? Paths.get(args[1]) : defaultOutput(input);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_NEAR_DUPLICATE_THRESHOLD;
+        compile(input, output, threshold);
+    }
+
+    static int compile(Path input, Path output) throws IOException {
+        return compile(input, output, DEFAULT_NEAR_DUPLICATE_THRESHOLD);
+    }
+
+    /**
+     * Compile the recipes of a JSON file, keeping only those the service would
+     * load and dropping their duplicates
+     */
+    static int compile(Path input, Path output, double nearDuplicateThreshold) throws IOException {
+        if (!Files.isRegularFile(input)) {
+            throw new IOException("Recipe data file not found: " + input);
+        }
+        if (BinaryRecipeCatalog.isBinary(input)) {
+            throw new IOException("Recipe data file is already compiled: " + input);
+        }
+        long start = System.nanoTime();
+        List<Recipe> recipes = new RecipeCatalogLoader(input.toString()).load();
+        RecipeDeduplicator.Report report = new RecipeDeduplicator(nearDuplicateThreshold).deduplicate(recipes);
+        RecipeCatalog catalog = RecipeCatalog.build(report.getKept());
+        BinaryRecipeCatalog.write(catalog, output);
+        logger.info("Compiled {} recipes ({} duplicates dropped) from {} into {} ({} bytes) in {} ms",
+            catalog.size(), report.getDuplicates().size(), input, output, Files.size(output),
+            (System.nanoTime() - start) / 1_000_000);
+        return catalog.size();
+    }
+
+    private static Path defaultOutput(Path input) {
+        String name = input.getFileName().toString().replaceFirst("\\.json(\\.gz)?$", "");
+        return input.resolveSibling(name + ".bin");
+    }
+}
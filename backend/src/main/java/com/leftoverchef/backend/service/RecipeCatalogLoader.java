@@ -0,0 +1,206 @@
+package com.leftoverchef.backend.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.leftoverchef.backend.model.Recipe;
+import com.leftoverchef.backend.util.TextBlob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads recipes from the configured data file. A path that exists on disk is
+ * read from disk, which is what makes hot reload possible; otherwise the name
+ * is looked up on the classpath, falling back to the bundled data files. The
+ * file may be plain or gzip-compressed JSON, or a catalog compiled by
+ * {@link RecipeCatalogCompiler}, which is memory-mapped instead of parsed.
+ */
+final class RecipeCatalogLoader {
+    private static final Logger logger = LoggerFactory.getLogger(RecipeCatalogLoader.class);
+    private static final String[] CLASSPATH_FALLBACKS = {
+        "/cleaned_recipe_data.json", "/Final_Updated_Recipe_Data_with_weights.json"
+    };
+
+    private final String dataFile;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    RecipeCatalogLoader(String dataFile) {
+        this.dataFile = dataFile;
+    }
+
+    /**
+     * The data file on disk, or null when the recipes come from the classpath
+     */
+    Path resolveFile() {
+        if (dataFile == null || dataFile.isBlank()) {
+            return null;
+        }
+        Path path = Paths.get(dataFile);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    /**
+     * Read and validate every recipe. Returns an empty list when no data file
+     * can be found; throws when one is found but cannot be read.
+     */
+    List<Recipe> load() throws IOException {
+        RecipeCatalog compiled = loadCompiled();
+        if (compiled != null) {
+            return new ArrayList<>(compiled.getRecipes());
+        }
+        try (InputStream inputStream = open()) {
+            if (inputStream == null) {
+                logger.warn("No recipe data file found");
+                return new ArrayList<>();
+            }
+            return parse(inputStream);
+        }
+    }
+
+    /**
+     * The catalog compiled into the data file, with its indexes already built,
+     * or null when the data file is JSON and has to go through load()
+     */
+    RecipeCatalog loadCompiled() throws IOException {
+        Path file = resolveFile();
+        if (file == null || !BinaryRecipeCatalog.isBinary(file)) {
+            return null;
+        }
+        logger.info("Loading compiled recipe catalog from {}", file.toAbsolutePath());
+        RecipeCatalog catalog = BinaryRecipeCatalog.read(file);
+        logger.info("Recipe loading summary: {} recipes loaded from compiled catalog", catalog.size());
+        return catalog;
+    }
+
+    private InputStream open() throws IOException {
+        Path file = resolveFile();
+        if (file != null) {
+            logger.info("Loading recipes from {}", file.toAbsolutePath());
+            return Files.newInputStream(file);
+        }
+        if (dataFile != null && !dataFile.isBlank()) {
+            String resource = dataFile.startsWith("/") ? dataFile : "/" + dataFile;
+            InputStream inputStream = getClass().getResourceAsStream(resource);
+            if (inputStream != null) {
+                logger.info("Loading recipes from classpath resource {}", resource);
+                return inputStream;
+            }
+        }
+        for (String resource : CLASSPATH_FALLBACKS) {
+            InputStream inputStream = getClass().getResourceAsStream(resource);
+            if (inputStream != null) {
+                logger.info("Recipe data file {} not found, falling back to {}", dataFile, resource);
+                return inputStream;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stream recipes out of either a bare array or a {"recipes": [...]} wrapper,
+     * binding and validating one recipe at a time so only the recipes kept are
+     * ever held in memory. Gzip-compressed input is detected and unpacked.
+     * Instructions and raw ingredients text are kept off the heap.
+     */
+    List<Recipe> parse(InputStream inputStream) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(decompress(inputStream))) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                return readRecipes(parser);
+            }
+            if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    if (parser.nextToken() == JsonToken.START_ARRAY && "recipes".equals(field)) {
+                        return readRecipes(parser);
+                    }
+                    parser.skipChildren();
+                }
+            }
+            throw new IOException("Expected a JSON array of recipes or an object with a \"recipes\" array");
+        }
+    }
+
+    private List<Recipe> readRecipes(JsonParser parser) throws IOException {
+        ObjectReader reader = mapper.readerFor(Recipe.class);
+        JsonStreamContext arrayContext = parser.getParsingContext();
+        List<Recipe> recipes = new ArrayList<>();
+        TextBlob.Builder text = new TextBlob.Builder();
+        int[] textRefs = new int[256];
+        int totalRecipes = 0;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IOException("Unexpected end of recipe data after " + totalRecipes + " recipes");
+            }
+            totalRecipes++;
+            try {
+                Recipe recipe = reader.readValue(parser);
+                if (isValid(recipe)) {
+                    // Move the long text off the heap as soon as the recipe is kept
+                    int slot = recipes.size() * 2;
+                    if (slot + 1 >= textRefs.length) {
+                        textRefs = Arrays.copyOf(textRefs, textRefs.length * 2);
+                    }
+                    textRefs[slot] = recipe.getInstructions() != null ? text.add(recipe.getInstructions()) : -1;
+                    textRefs[slot + 1] = recipe.getIngredients() != null ? text.add(recipe.getIngredients()) : -1;
+                    recipe.setInstructions(null);
+                    recipe.setIngredients(null);
+                    recipes.add(recipe);
+                }
+            } catch (JsonProcessingException e) {
+                logger.warn("Error parsing recipe {}: {}", totalRecipes, e.getOriginalMessage());
+                // Skip whatever is left of the malformed recipe
+                while (parser.getParsingContext() != arrayContext) {
+                    if (parser.nextToken() == null) {
+                        throw new IOException("Unexpected end of recipe data after " + totalRecipes + " recipes");
+                    }
+                }
+            }
+        }
+
+        TextBlob textBlob = text.build();
+        for (int i = 0; i < recipes.size(); i++) {
+            recipes.get(i).setExternalText(textBlob, textRefs[i * 2], textRefs[i * 2 + 1]);
+        }
+
+        logger.info("Recipe loading summary: {} recipes in file, {} valid recipes loaded",
+            totalRecipes, recipes.size());
+        return recipes;
+    }
+
+    /**
+     * The stream itself, buffered, or unpacked when it starts with the gzip magic bytes
+     */
+    static InputStream decompress(InputStream inputStream) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(inputStream);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new GZIPInputStream(buffered, 64 * 1024);
+        }
+        return buffered;
+    }
+
+    static boolean isValid(Recipe recipe) {
+        return recipe != null && recipe.getTitle() != null && !recipe.getTitle().isEmpty()
+            && recipe.getCleanedIngredients() != null && !recipe.getCleanedIngredients().isEmpty();
+    }
+}
@@ -0,0 +1,346 @@
+package com.leftoverchef.backend.service;
+
+import com.leftoverchef.backend.model.Recipe;
+import com.leftoverchef.backend.util.IntIntHashMap;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Drops repeated recipes from a freshly loaded catalog before it is indexed,
+ * keeping the first copy of each. A recipe is an exact duplicate when its
+ * title and ingredient set match a kept recipe's once normalized (lowercase,
+ * punctuation and repeated spaces removed, ingredients deduplicated and
+ * sorted), and a near duplicate when the Jaccard similarity of its title
+ * words and ingredients to a kept recipe reaches the threshold.
+ *
+ * Exact duplicates are found by hashing the normalized key. Near duplicates
+ * are found with MinHash: each recipe gets HASHES minimum hashes, split into
+ * BANDS bands, and only kept recipes sharing a whole band with it are
+ * compared, by their exact Jaccard similarity; the most similar is its
+ * representative. A band whose minimums all come from one feature is
+ * skipped: it only says two recipes share, say, "salt", and would put every
+ * small recipe with salt in one bucket. Comparing only against kept recipes
+ * means clusters cannot chain through a series of small edits.
+ * scripts/clean_recipe_data.py implements the same normalization, hashes
+ * and threshold.
+ */
+final class RecipeDeduplicator {
+    static final int HASHES = 64;
+    static final int BANDS = 16;
+    private static final int ROWS = HASHES / BANDS;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        for (int k = 0; k < HASHES; k++) {
+            SEEDS[k] = mix((k + 1) * 0x9E3779B97F4A7C15L);
+        }
+    }
+
+    private final double nearDuplicateThreshold;
+
+    /**
+     * A threshold of 0 turns near-duplicate detection off, leaving only the
+     * exact check
+     */
+    RecipeDeduplicator(double nearDuplicateThreshold) {
+        if (!(nearDuplicateThreshold >= 0 && nearDuplicateThreshold <= 1)) {
+            throw new IllegalArgumentException("Near-duplicate threshold must be between 0 and 1");
+        }
+        this.nearDuplicateThreshold = nearDuplicateThreshold;
+    }
+
+    Report deduplicate(List<Recipe> recipes) {
+        boolean nearEnabled = nearDuplicateThreshold > 0;
+        List<Recipe> kept = new ArrayList<>();
+        List<Duplicate> duplicates = new ArrayList<>();
+        Map<String, Integer> exactKeys = new HashMap<>();
+        List<long[]> keptFeatures = new ArrayList<>();
+
+        // Per band, the last kept recipe (plus one) in each bucket, chained
+        // back through next[kept * BANDS + band]
+        IntIntHashMap[] buckets = new IntIntHashMap[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            buckets[band] = new IntIntHashMap();
+        }
+        int[] next = new int[64 * BANDS];
+        int[] checkedFor = new int[64];
+        long[] signature = new long[HASHES];
+        int[] minFeatures = new int[HASHES];
+        int[] bandKeys = new int[BANDS];
+
+        for (int i = 0; i < recipes.size(); i++) {
+            Recipe recipe = recipes.get(i);
+            String title = normalize(recipe.getTitle());
+            List<String> ingredients = normalizedIngredients(recipe.getCleanedIngredients());
+
+            String key = title + '\n' + String.join("\n", ingredients);
+            Integer original = exactKeys.get(key);
+            if (original != null) {
+                duplicates.add(new Duplicate(recipe, kept.get(original), true, 1.0));
+                continue;
+            }
+
+            long[] features = null;
+            if (nearEnabled) {
+                features = features(title, ingredients);
+                signature(features, signature, minFeatures);
+                int best = -1;
+                double bestSimilarity = 0.0;
+                for (int band = 0; band < BANDS; band++) {
+                    bandKeys[band] = bandKey(signature, minFeatures, band);
+                    if (bandKeys[band] < 0) {
+                        continue;
+                    }
+                    for (int c = buckets[band].get(bandKeys[band]) - 1; c >= 0; c = next[c * BANDS + band] - 1) {
+                        if (checkedFor[c] == i + 1) {
+                            continue;
+                        }
+                        checkedFor[c] = i + 1;
+                        double similarity = jaccard(features, keptFeatures.get(c));
+                        if (similarity >= nearDuplicateThreshold
+                            && (similarity > bestSimilarity || (similarity == bestSimilarity && c < best))) {
+                            best = c;
+                            bestSimilarity = similarity;
+                        }
+                    }
+                }
+                if (best >= 0) {
+                    duplicates.add(new Duplicate(recipe, kept.get(best), false, bestSimilarity));
+                    continue;
+                }
+            }
+
+            int position = kept.size();
+            kept.add(recipe);
+            exactKeys.put(key, position);
+            if (nearEnabled) {
+                keptFeatures.add(features);
+                if ((position + 1) * BANDS > next.length) {
+                    next = Arrays.copyOf(next, next.length * 2);
+                    checkedFor = Arrays.copyOf(checkedFor, checkedFor.length * 2);
+                }
+                for (int band = 0; band < BANDS; band++) {
+                    if (bandKeys[band] < 0) {
+                        continue;
+                    }
+                    // IntIntHashMap has no put, so set the head by adding the difference
+                    int head = buckets[band].get(bandKeys[band]);
+                    next[position * BANDS + band] = head;
+                    buckets[band].add(bandKeys[band], position + 1 - head);
+                }
+            }
+        }
+        return new Report(recipes.size(), kept, duplicates);
+    }
+
+    /**
+     * Lowercase letters and digits, every other run of characters becoming a
+     * single space
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            } else if (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+        int length = normalized.length();
+        if (length > 0 && normalized.charAt(length - 1) == ' ') {
+            normalized.setLength(length - 1);
+        }
+        return normalized.toString();
+    }
+
+    private static List<String> normalizedIngredients(List<String> ingredients) {
+        if (ingredients == null) {
+            return Collections.emptyList();
+        }
+        TreeSet<String> normalized = new TreeSet<>();
+        for (String ingredient : ingredients) {
+            String item = normalize(ingredient);
+            if (!item.isEmpty()) {
+                normalized.add(item);
+            }
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    /**
+     * Sorted distinct fingerprints of the title words and the ingredients
+     */
+    static long[] features(String title, List<String> ingredients) {
+        String[] words = title.isEmpty() ? new String[0] : title.split(" ");
+        long[] features = new long[words.length + ingredients.size()];
+        for (int i = 0; i < words.length; i++) {
+            features[i] = fingerprint("t:" + words[i]);
+        }
+        for (int i = 0; i < ingredients.size(); i++) {
+            features[words.length + i] = fingerprint("i:" + ingredients.get(i));
+        }
+        Arrays.sort(features);
+        int distinct = 0;
+        for (int i = 0; i < features.length; i++) {
+            if (i == 0 || features[i] != features[i - 1]) {
+                features[distinct++] = features[i];
+            }
+        }
+        return Arrays.copyOf(features, distinct);
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes
+     */
+    static long fingerprint(String feature) {
+        long hash = FNV_OFFSET;
+        for (byte b : feature.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Minimum of each of the HASHES hash functions over the features, as
+     * non-negative values, and which feature gave it; all Long.MAX_VALUE and
+     * -1 for an empty set
+     */
+    static void signature(long[] features, long[] signature, int[] minFeatures) {
+        Arrays.fill(signature, Long.MAX_VALUE);
+        Arrays.fill(minFeatures, -1);
+        for (int f = 0; f < features.length; f++) {
+            for (int k = 0; k < HASHES; k++) {
+                long hash = mix(features[f] ^ SEEDS[k]) >>> 1;
+                if (hash < signature[k]) {
+                    signature[k] = hash;
+                    minFeatures[k] = f;
+                }
+            }
+        }
+    }
+
+    /**
+     * Bucket of a band, or -1 when all its minimums come from one feature
+     */
+    private static int bandKey(long[] signature, int[] minFeatures, int band) {
+        boolean mixed = false;
+        long hash = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            mixed |= minFeatures[row] != minFeatures[band * ROWS];
+            hash = mix(hash ^ signature[row]);
+        }
+        return mixed ? (int) (hash >>> 33) : -1;
+    }
+
+    /**
+     * Jaccard similarity of two sorted distinct sets
+     */
+    static double jaccard(long[] a, long[] b) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - shared;
+        return union == 0 ? 1.0 : (double) shared / union;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The recipes kept, in catalog order, and every recipe collapsed into one
+     * of them
+     */
+    static final class Report {
+        private final int recipesRead;
+        private final List<Recipe> kept;
+        private final List<Duplicate> duplicates;
+
+        Report(int recipesRead, List<Recipe> kept, List<Duplicate> duplicates) {
+            this.recipesRead = recipesRead;
+            this.kept = kept;
+            this.duplicates = duplicates;
+        }
+
+        int getRecipesRead() {
+            return recipesRead;
+        }
+
+        List<Recipe> getKept() {
+            return kept;
+        }
+
+        List<Duplicate> getDuplicates() {
+            return duplicates;
+        }
+
+        long exactCount() {
+            return duplicates.stream().filter(Duplicate::isExact).count();
+        }
+    }
+
+    /**
+     * A dropped recipe and the kept recipe standing in for it. Only titles and
+     * indexes are held, so the dropped recipe itself can be collected.
+     */
+    static final class Duplicate {
+        private final String title;
+        private final String recipeIndex;
+        private final String keptTitle;
+        private final String keptRecipeIndex;
+        private final boolean exact;
+        private final double similarity;
+
+        Duplicate(Recipe duplicate, Recipe kept, boolean exact, double similarity) {
+            this.title = duplicate.getTitle();
+            this.recipeIndex = duplicate.getRecipeIndex();
+            this.keptTitle = kept.getTitle();
+            this.keptRecipeIndex = kept.getRecipeIndex();
+            this.exact = exact;
+            this.similarity = similarity;
+        }
+
+        boolean isExact() {
+            return exact;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("title", title);
+            entry.put("recipeIndex", recipeIndex);
+            entry.put("keptTitle", keptTitle);
+            entry.put("keptRecipeIndex", keptRecipeIndex);
+            entry.put("kind", exact ? "exact" : "near");
+            entry.put("similarity", similarity);
+            return entry;
+        }
+    }
+}
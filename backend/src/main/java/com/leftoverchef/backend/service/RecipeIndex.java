@@ -0,0 +1,218 @@
+package com.leftoverchef.backend.service;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Inverted index from ingredient IDs to the catalog positions of the recipes
+ * that use them. Built once per catalog so matching only has to score recipes
+ * sharing at least one ingredient with the pantry. The postings of every term
+ * are laid out back to back in one array with an offset array beside it, so
+ * a compiled catalog can store and reload them as two flat columns.
+ *
+ * Merging postings needs a bitset and counters the size of the catalog. A
+ * few sets are pooled with the index, one per core, and always handed back
+ * cleared; a request finding the pool empty allocates its own, which is
+ * dropped if the pool is full when it is done. The pool belongs to this
+ * index, so a reloaded catalog starts with scratch sized to it and the old
+ * scratch goes with the old catalog.
+ */
+final class RecipeIndex {
+    private static final int POOLED_SCRATCH = Runtime.getRuntime().availableProcessors();
+
+    private final int[] offsets;
+    private final int[] positions;
+    private final int recipeCount;
+    private final ArrayBlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(POOLED_SCRATCH);
+
+    private RecipeIndex(int[] offsets, int[] positions, int recipeCount) {
+        this.offsets = offsets;
+        this.positions = positions;
+        this.recipeCount = recipeCount;
+    }
+
+    /**
+     * Build postings from the ingredient IDs each recipe is scored on, indexed
+     * by catalog position.
+     */
+    static RecipeIndex build(int[][] recipeTermIds, int termCount) {
+        int[] offsets = new int[termCount + 1];
+        for (int[] termIds : recipeTermIds) {
+            for (int termId : termIds) {
+                offsets[termId + 1]++;
+            }
+        }
+        for (int termId = 0; termId < termCount; termId++) {
+            offsets[termId + 1] += offsets[termId];
+        }
+        int[] positions = new int[offsets[termCount]];
+        int[] fill = Arrays.copyOf(offsets, termCount);
+        for (int position = 0; position < recipeTermIds.length; position++) {
+            for (int termId : recipeTermIds[position]) {
+                positions[fill[termId]++] = position;
+            }
+        }
+        return new RecipeIndex(offsets, positions, recipeTermIds.length);
+    }
+
+    /**
+     * An index over postings already laid out as getOffsets() and
+     * getPositions() return them
+     */
+    static RecipeIndex wrap(int[] offsets, int[] positions, int recipeCount) {
+        return new RecipeIndex(offsets, positions, recipeCount);
+    }
+
+    /**
+     * Ascending positions of the recipes using term t are
+     * getPositions()[getOffsets()[t], getOffsets()[t + 1])
+     */
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    int[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * Positions, in ascending catalog order, of the recipes using any of the
+     * ingredients an encoded pantry matches.
+     */
+    int[] candidates(int[][] pantryTermIds) {
+        Scratch scratch = borrow();
+        long[] words = scratch.words;
+        int wordCount = words.length;
+
+        int count = 0;
+        int firstWord = wordCount;
+        int lastWord = -1;
+        for (int[] termIds : pantryTermIds) {
+            for (int termId : termIds) {
+                for (int i = offsets[termId]; i < offsets[termId + 1]; i++) {
+                    int position = positions[i];
+                    int word = position >>> 6;
+                    long bit = 1L << position;
+                    if ((words[word] & bit) == 0) {
+                        words[word] |= bit;
+                        count++;
+                        firstWord = Math.min(firstWord, word);
+                        lastWord = Math.max(lastWord, word);
+                    }
+                }
+            }
+        }
+
+        int[] candidates = new int[count];
+        int next = 0;
+        for (int word = firstWord; word <= lastWord; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                candidates[next++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+            words[word] = 0;
+        }
+        scratchPool.offer(scratch);
+        return candidates;
+    }
+
+    /**
+     * Count-merge the postings of distinct ingredient IDs: every recipe using at
+     * least one of them, in ascending catalog order, with how many of them it
+     * uses. Only the postings of the given IDs are read.
+     */
+    TermCounts countTerms(int[] distinctTermIds) {
+        return countTerms(distinctTermIds, 0, distinctTermIds.length);
+    }
+
+    /**
+     * countTerms over the distinct IDs at [from, to) of an array
+     */
+    TermCounts countTerms(int[] distinctTermIds, int from, int to) {
+        Scratch scratch = borrow();
+        long[] words = scratch.words;
+        int wordCount = words.length;
+        if (scratch.counts == null) {
+            scratch.counts = new int[recipeCount];
+        }
+        int[] counts = scratch.counts;
+
+        int count = 0;
+        int firstWord = wordCount;
+        int lastWord = -1;
+        for (int t = from; t < to; t++) {
+            int termId = distinctTermIds[t];
+            for (int i = offsets[termId]; i < offsets[termId + 1]; i++) {
+                int position = positions[i];
+                if (counts[position]++ == 0) {
+                    int word = position >>> 6;
+                    words[word] |= 1L << position;
+                    count++;
+                    firstWord = Math.min(firstWord, word);
+                    lastWord = Math.max(lastWord, word);
+                }
+            }
+        }
+
+        int[] counted = new int[count];
+        int[] termCounts = new int[count];
+        int next = 0;
+        for (int word = firstWord; word <= lastWord; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                int position = (word << 6) + Long.numberOfTrailingZeros(bits);
+                counted[next] = position;
+                termCounts[next++] = counts[position];
+                counts[position] = 0;
+                bits &= bits - 1;
+            }
+            words[word] = 0;
+        }
+        scratchPool.offer(scratch);
+        return new TermCounts(counted, termCounts);
+    }
+
+    private Scratch borrow() {
+        Scratch scratch = scratchPool.poll();
+        return scratch != null ? scratch : new Scratch((recipeCount + 63) >>> 6);
+    }
+
+    /**
+     * A bitset over the catalog and, once counting has needed them, a counter
+     * per recipe; both all zero while pooled
+     */
+    private static final class Scratch {
+        private final long[] words;
+        private int[] counts;
+
+        private Scratch(int wordCount) {
+            this.words = new long[wordCount];
+        }
+    }
+
+    /**
+     * Recipes and how many of the counted ingredient IDs each uses, as parallel arrays
+     */
+    static final class TermCounts {
+        private final int[] positions;
+        private final int[] counts;
+
+        private TermCounts(int[] positions, int[] counts) {
+            this.positions = positions;
+            this.counts = counts;
+        }
+
+        int size() {
+            return positions.length;
+        }
+
+        int position(int i) {
+            return positions[i];
+        }
+
+        int count(int i) {
+            return counts[i];
+        }
+    }
+}
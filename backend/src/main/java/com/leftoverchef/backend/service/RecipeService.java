@@ -1,260 +1,995 @@
 package com.leftoverchef.backend.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.leftoverchef.backend.model.IngredientSuggestion;
+import com.leftoverchef.backend.model.PartialMatch;
 import com.leftoverchef.backend.model.Recipe;
+import com.leftoverchef.backend.model.RecipeFilter;
+import com.leftoverchef.backend.model.ScoredRecipe;
+import com.leftoverchef.backend.util.TopKSelector;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
+/**
+ * Matches pantries to recipes. Safe to call from any number of request threads:
+ * the catalog is an immutable snapshot that scoring only reads, each request
+ * ranks into its own TopKSelector, and served recipes are scored copies.
+ */
 @Service
 public class RecipeService {
     private static final Logger logger = LoggerFactory.getLogger(RecipeService.class);
-    private List<Recipe> recipes;
-    private Set<String> usedRecipeIds = new HashSet<>();
-    private double totalFoodSaved = 0.0;
+    static final String DEFAULT_SESSION_ID = "default";
+
+    @Value("${recipe.rotation.session-ttl-minutes:30}")
+    private long rotationSessionTtlMinutes = 30;
+
+    @Value("${recipe.rotation.max-sessions:10000}")
+    private int rotationMaxSessions = 10_000;
+
+    private volatile RecipeCatalog catalog = RecipeCatalog.build(Collections.emptyList());
+    private final SessionRotationStore rotations =
+        new SessionRotationStore(TimeUnit.MINUTES.toMillis(rotationSessionTtlMinutes), rotationMaxSessions);
+    private final DoubleAdder totalFoodSaved = new DoubleAdder();
+    private final CooccurrenceMatrix cooccurrence = new CooccurrenceMatrix();
+
+    @Value("${recipe.pantry.session-ttl-minutes:30}")
+    private long pantrySessionTtlMinutes = 30;
+
+    @Value("${recipe.pantry.max-sessions:1000}")
+    private int pantryMaxSessions = 1000;
+
+    private final PantryStore pantries =
+        new PantryStore(TimeUnit.MINUTES.toMillis(pantrySessionTtlMinutes), pantryMaxSessions);
+
+    @Value("${recipe.scoring.parallel.enabled:false}")
+    private boolean parallelScoringEnabled = false;
+
+    @Value("${recipe.scoring.parallel.parallelism:0}")
+    private int parallelScoringParallelism = 0;
+
+    @Value("${recipe.scoring.parallel.threshold:50000}")
+    private int parallelScoringThreshold = 50_000;
+
+    @Value("${recipe.scoring.parallel.chunk-size:8192}")
+    private int parallelScoringChunkSize = 8192;
+
+    private volatile ParallelRecipeScorer parallelScorer;
+
+    // "bitset" or "merge"; both give identical scores, see ScoringEngineBenchmark
+    @Value("${recipe.scoring.engine:bitset}")
+    private String scoringEngine = "bitset";
+
+    private volatile boolean bitsetScoring = true;
+
+    @Value("${recipe.cache.max-entries:10000}")
+    private int rankingCacheMaxEntries = 10_000;
+
+    @Value("${recipe.cache.depth:50}")
+    private int rankingCacheDepth = 50;
+
+    private volatile RankingCache rankingCache = new RankingCache(rankingCacheMaxEntries);
+
+    @Value("${recipe.data.file:cleaned_recipe_data.json}")
+    private String dataFile = "cleaned_recipe_data.json";
+
+    @Value("${recipe.data.reload-interval-seconds:30}")
+    private long dataFileReloadIntervalSeconds = 30;
+
+    @Value("${recipe.dedup.enabled:true}")
+    private boolean dedupEnabled = true;
+
+    @Value("${recipe.dedup.near-duplicate-threshold:0.8}")
+    private double nearDuplicateThreshold = 0.8;
+
+    private RecipeDeduplicator deduplicator = new RecipeDeduplicator(nearDuplicateThreshold);
+    private volatile RecipeDeduplicator.Report duplicateReport;
+
+    private RecipeCatalogLoader catalogLoader;
+    private ScheduledExecutorService dataFileWatcher;
+    private volatile String dataFileStamp;
 
     // For testing purposes
     void setRecipes(List<Recipe> recipes) {
-        this.recipes = recipes;
-        this.usedRecipeIds.clear();
-        this.totalFoodSaved = 0.0;
+        this.catalog = RecipeCatalog.build(recipes);
+        this.cooccurrence.update(catalog);
+        this.rankingCache.invalidate();
+        this.rotations.clear();
+        this.pantries.clear();
+        this.totalFoodSaved.reset();
+    }
+
+    // For testing and benchmarking
+    void setScoringEngine(String engine) {
+        if (!"bitset".equalsIgnoreCase(engine) && !"merge".equalsIgnoreCase(engine)) {
+            throw new IllegalArgumentException("Unknown recipe.scoring.engine: " + engine);
+        }
+        this.scoringEngine = engine;
+        this.bitsetScoring = "bitset".equalsIgnoreCase(engine);
+    }
+
+    // For testing and benchmarking; a threshold of 0 parallelizes every ranking
+    void setParallelScoring(int parallelism, int threshold, int chunkSize) {
+        ParallelRecipeScorer previous = parallelScorer;
+        parallelScorer = new ParallelRecipeScorer(parallelism, threshold, chunkSize);
+        if (previous != null) {
+            previous.shutdown();
+        }
     }
 
     @PostConstruct
     public void init() {
-        ObjectMapper mapper = new ObjectMapper();
+        rotations.configure(TimeUnit.MINUTES.toMillis(rotationSessionTtlMinutes), rotationMaxSessions);
+        pantries.configure(TimeUnit.MINUTES.toMillis(pantrySessionTtlMinutes), pantryMaxSessions);
+        rankingCache = new RankingCache(rankingCacheMaxEntries);
+        setScoringEngine(scoringEngine);
+        int parallelism = parallelScoringParallelism > 0
+            ? parallelScoringParallelism : Runtime.getRuntime().availableProcessors();
+        // One thread only adds fork/join overhead to sequential scoring
+        if (parallelScoringEnabled && parallelism > 1) {
+            setParallelScoring(parallelism, parallelScoringThreshold, parallelScoringChunkSize);
+        }
+
+        deduplicator = new RecipeDeduplicator(nearDuplicateThreshold);
+        catalogLoader = new RecipeCatalogLoader(dataFile);
+        reloadCatalog();
+        watchDataFile();
+    }
+
+    /**
+     * Load the catalog from recipe.data.file, build its indexes on the calling
+     * thread, and swap it in with a single volatile write. Requests already
+     * running keep the snapshot they started with, so none of them ever sees a
+     * partly built catalog. If loading fails the current catalog stays in place.
+     * A compiled catalog comes with its indexes built and was deduplicated by
+     * the compiler, so it has no duplicate report.
+     */
+    public synchronized Map<String, Object> reloadCatalog() {
+        if (catalogLoader == null) {
+            catalogLoader = new RecipeCatalogLoader(dataFile);
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
         try {
-            InputStream inputStream = getClass().getResourceAsStream("/cleaned_recipe_data.json");
-            if (inputStream == null) {
-                System.out.println("Recipe data file not found, falling back to original file");
-                inputStream = getClass().getResourceAsStream("/Final_Updated_Recipe_Data_with_weights.json");
-            }
-            
-            if (inputStream == null) {
-                System.out.println("No recipe data file found");
-                recipes = new ArrayList<>();
-                return;
-            }
-
-            // First read as JsonNode to handle potential wrapper object
-            JsonNode rootNode = mapper.readTree(inputStream);
-            JsonNode recipesNode = rootNode.has("recipes") ? rootNode.get("recipes") : rootNode;
-            
-            recipes = new ArrayList<>();
-            int totalRecipes = 0;
-            int validRecipes = 0;
-            
-            for (JsonNode recipeNode : recipesNode) {
-                totalRecipes++;
-                try {
-                    Recipe recipe = mapper.treeToValue(recipeNode, Recipe.class);
-                    if (recipe != null && recipe.getTitle() != null && !recipe.getTitle().isEmpty() 
-                        && recipe.getCleanedIngredients() != null && !recipe.getCleanedIngredients().isEmpty()) {
-                        recipes.add(recipe);
-                        validRecipes++;
-                    }
-                } catch (Exception e) {
-                    System.out.println("Error parsing recipe: " + e.getMessage());
+            Path file = catalogLoader.resolveFile();
+            dataFileStamp = file != null ? fileStamp(file) : null;
+
+            long start = System.nanoTime();
+            RecipeDeduplicator.Report report = null;
+            RecipeCatalog loaded = catalogLoader.loadCompiled();
+            if (loaded != null) {
+                logger.info("Using the indexes and deduplication of the compiled catalog");
+            } else {
+                List<Recipe> recipes = catalogLoader.load();
+                if (dedupEnabled) {
+                    report = deduplicator.deduplicate(recipes);
+                    recipes = report.getKept();
+                    logger.info("Collapsed {} duplicate recipes ({} exact, {} near) out of {}",
+                        report.getDuplicates().size(), report.exactCount(),
+                        report.getDuplicates().size() - report.exactCount(), report.getRecipesRead());
                 }
+                loaded = RecipeCatalog.build(recipes);
             }
-            
-            System.out.println("Recipe loading summary:");
-            System.out.println("Total recipes in file: " + totalRecipes);
-            System.out.println("Valid recipes loaded: " + validRecipes);
-            
-            // Print first few recipes and their ingredients for debugging
-            System.out.println("\nSample recipes:");
-            for (int i = 0; i < Math.min(5, recipes.size()); i++) {
-                Recipe recipe = recipes.get(i);
-                System.out.println("\nRecipe " + (i+1) + ": " + recipe.getTitle());
-                System.out.println("Ingredients: " + recipe.getCleanedIngredients());
+            catalog = loaded;
+            duplicateReport = report;
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int pairingChanges = cooccurrence.update(loaded);
+            logger.info("Ingredient pairings updated with {} changed recipes in {} ms", pairingChanges,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            logger.info("Recipe catalog version {} installed: {} recipes, {} distinct ingredients, built in {} ms",
+                loaded.getVersion(), loaded.size(), loaded.getDictionary().size(), millis);
+            summary.put("reloaded", true);
+            summary.put("version", loaded.getVersion());
+            summary.put("recipes", loaded.size());
+            summary.put("ingredients", loaded.getDictionary().size());
+            summary.put("duplicates", report != null ? report.getDuplicates().size() : 0);
+            summary.put("buildMillis", millis);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Unable to load recipes, keeping catalog version {}", catalog.getVersion(), e);
+            summary.put("reloaded", false);
+            summary.put("version", catalog.getVersion());
+            summary.put("error", e.getMessage());
+        }
+        return summary;
+    }
+
+    private void watchDataFile() {
+        Path file = catalogLoader.resolveFile();
+        if (file == null || dataFileReloadIntervalSeconds <= 0) {
+            return;
+        }
+        dataFileWatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recipe-data-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dataFileWatcher.scheduleWithFixedDelay(() -> reloadIfChanged(file),
+            dataFileReloadIntervalSeconds, dataFileReloadIntervalSeconds, TimeUnit.SECONDS);
+        logger.info("Watching {} for changes every {} s", file.toAbsolutePath(), dataFileReloadIntervalSeconds);
+    }
+
+    private void reloadIfChanged(Path file) {
+        try {
+            if (Files.isRegularFile(file) && !fileStamp(file).equals(dataFileStamp)) {
+                logger.info("Recipe data file changed, reloading");
+                reloadCatalog();
             }
-        } catch (IOException e) {
-            System.out.println("Unable to load recipes: " + e.getMessage());
-            e.printStackTrace();
-            recipes = new ArrayList<>();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to check recipe data file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String fileStamp(Path file) throws IOException {
+        return Files.getLastModifiedTime(file).toMillis() + ":" + Files.size(file);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dataFileWatcher != null) {
+            dataFileWatcher.shutdownNow();
+        }
+        ParallelRecipeScorer scorer = parallelScorer;
+        if (scorer != null) {
+            scorer.shutdown();
         }
     }
 
     public Recipe matchRecipe(List<String> userIngredients) {
-        if (userIngredients == null || userIngredients.isEmpty() || recipes == null || recipes.isEmpty()) {
+        return matchRecipe(userIngredients, DEFAULT_SESSION_ID);
+    }
+
+    public Recipe matchRecipe(List<String> userIngredients, String sessionId) {
+        return matchRecipe(userIngredients, sessionId, null);
+    }
+
+    public Recipe matchRecipe(List<String> userIngredients, String sessionId, RecipeFilter filter) {
+        return matchRecipe(userIngredients, sessionId, filter, null);
+    }
+
+    /**
+     * Best match for the ingredients that the session has not been served yet,
+     * among the recipes meeting the filter; a null session has no rotation
+     * and always gets the best match. Returns null for an empty pantry or
+     * when no recipe meets the filter.
+     * Quantities, in pounds by pantry item, favor recipes using up more of
+     * the leftovers; pass null to rank on ingredient names alone.
+     */
+    public Recipe matchRecipe(List<String> userIngredients, String sessionId, RecipeFilter filter,
+                              Map<String, Double> quantities) {
+        RecipeCatalog catalog = this.catalog;
+        if (userIngredients == null || userIngredients.isEmpty() || catalog.size() == 0) {
             logger.warn("Invalid input or no recipes available");
-            return recipes != null && !recipes.isEmpty() ? recipes.get(0) : null;
+            return null;
         }
 
         logger.info("Matching recipe for ingredients: {}", userIngredients);
         
-        // Preprocess user ingredients
-        List<String> processedUserIngredients = userIngredients.stream()
-            .map(ing -> ing.toLowerCase().trim())
-            .filter(ing -> !ing.isEmpty())
-            .collect(Collectors.toList());
-
+        List<String> processedUserIngredients = preprocessIngredients(userIngredients);
         logger.info("Processed user ingredients: {}", processedUserIngredients);
 
-        // Get all recipes with their scores
-        List<Recipe> scoredRecipes = recipes.stream()
-            .filter(recipe -> !usedRecipeIds.contains(recipe.getRecipeIndex()))
-            .map(recipe -> {
-                double score = computeScore(processedUserIngredients, recipe);
-                recipe.setScore(score);
-                logger.debug("Recipe: {} | Score: {} | Ingredients: {}", 
-                    recipe.getTitle(), score, recipe.getCleanedIngredients());
-                return recipe;
-            })
-            .sorted(Comparator.comparingDouble(Recipe::getScore).reversed())
-            .collect(Collectors.toList());
-
-        logger.info("Found {} potential matches", scoredRecipes.size());
-
-        // If all recipes have been used or no matches found, reset and try again
-        if (scoredRecipes.isEmpty()) {
-            logger.info("No matches found or all recipes used, resetting used recipes set");
-            usedRecipeIds.clear();
-            scoredRecipes = new ArrayList<>(recipes);
-            scoredRecipes.forEach(recipe -> {
-                double score = computeScore(processedUserIngredients, recipe);
-                recipe.setScore(score);
-                logger.debug("Recipe after reset: {} | Score: {} | Ingredients: {}", 
-                    recipe.getTitle(), score, recipe.getCleanedIngredients());
-            });
-            scoredRecipes.sort(Comparator.comparingDouble(Recipe::getScore).reversed());
+        long[] allowed = catalog.allowed(filter);
+        double[] entryPounds = entryPounds(processedUserIngredients, quantities);
+        SessionRotationStore.Rotation rotation = rotations.get(sessionId, catalog.getVersion());
+        TopKSelector best;
+        synchronized (rotation) {
+            best = selectUnserved(catalog, processedUserIngredients, rotation, allowed, entryPounds);
+
+            // If all recipes have been used, reset and try again
+            if (best.size() == 0) {
+                logger.info("All recipes used by session, resetting its rotation");
+                rotation.reset();
+                best = selectUnserved(catalog, processedUserIngredients, rotation, allowed, entryPounds);
+            }
+            if (best.size() > 0) {
+                rotation.exclude(best.id(0));
+            }
+        }
+        if (best.size() == 0) {
+            logger.info("No recipe meets filter {}", filter);
+            return null;
         }
 
         // Always return a recipe, even if it's a poor match
-        Recipe bestRecipe = scoredRecipes.get(0);
+        Recipe bestRecipe = new Recipe(catalog.get(best.id(0)), best.score(0));
         logger.info("Best match selected: {} | Score: {} | Ingredients: {}", 
             bestRecipe.getTitle(), bestRecipe.getScore(), bestRecipe.getCleanedIngredients());
         
-        usedRecipeIds.add(bestRecipe.getRecipeIndex());
-        updateTotalFoodSaved(bestRecipe);
+        updateTotalFoodSaved(catalog, best.id(0));
         
         return bestRecipe;
     }
 
     public Recipe getAlternativeRecipe(List<String> userIngredients) {
-        if (userIngredients == null || userIngredients.isEmpty() || recipes == null || recipes.isEmpty()) {
+        return getAlternativeRecipe(userIngredients, DEFAULT_SESSION_ID);
+    }
+
+    public Recipe getAlternativeRecipe(List<String> userIngredients, String sessionId) {
+        return getAlternativeRecipe(userIngredients, sessionId, null);
+    }
+
+    /**
+     * Something similar to, but different from, the recipe last served to the
+     * session: its nearest unserved neighbor meeting the filter, the one
+     * scoring best for the ingredients when several do. Without such a
+     * neighbor this is the next best match among the recipes meeting the
+     * filter, skipping everything the session has been served, until the
+     * rotation starts over. Returns null for an empty pantry or when no
+     * recipe meets the filter.
+     */
+    public Recipe getAlternativeRecipe(List<String> userIngredients, String sessionId, RecipeFilter filter) {
+        RecipeCatalog catalog = this.catalog;
+        if (userIngredients == null || userIngredients.isEmpty() || catalog.size() == 0) {
             logger.warn("Invalid input or no recipes available for alternative");
-            return recipes != null && !recipes.isEmpty() ? recipes.get(0) : null;
+            return null;
         }
 
         logger.info("Getting alternative recipe for ingredients: {}", userIngredients);
         
-        // Preprocess user ingredients
-        List<String> processedUserIngredients = userIngredients.stream()
+        List<String> processedUserIngredients = preprocessIngredients(userIngredients);
+        logger.info("Processed user ingredients: {}", processedUserIngredients);
+
+        // Best unused recipe, which excludes the last matched recipe
+        long[] allowed = catalog.allowed(filter);
+        SessionRotationStore.Rotation rotation = rotations.get(sessionId, catalog.getVersion());
+        TopKSelector best;
+        synchronized (rotation) {
+            best = selectNeighbor(catalog, processedUserIngredients, rotation, allowed);
+            if (best.size() == 0) {
+                best = selectUnserved(catalog, processedUserIngredients, rotation, allowed, null);
+            }
+            // Every recipe meeting the filter has been used, so the rotation starts over
+            if (best.size() == 0) {
+                logger.info("All recipes used by session, resetting its rotation");
+                rotation.reset();
+                best = selectUnserved(catalog, processedUserIngredients, rotation, allowed, null);
+            }
+            if (best.size() > 0) {
+                rotation.exclude(best.id(0));
+            }
+        }
+        if (best.size() == 0) {
+            logger.info("No recipe meets filter {}", filter);
+            return null;
+        }
+
+        // Always return a recipe, even if it's a poor match
+        Recipe alternativeRecipe = new Recipe(catalog.get(best.id(0)), best.score(0));
+        logger.info("Best alternative selected: {} | Score: {} | Ingredients: {}", 
+            alternativeRecipe.getTitle(), alternativeRecipe.getScore(), alternativeRecipe.getCleanedIngredients());
+        updateTotalFoodSaved(catalog, best.id(0));
+        return alternativeRecipe;
+    }
+
+    /**
+     * Normalize a pantry into the form rankings are computed and cached under:
+     * lowercased, trimmed, non-empty items in sorted order. Duplicates are kept
+     * because each pantry entry counts toward the score.
+     */
+    private List<String> preprocessIngredients(List<String> userIngredients) {
+        return userIngredients.stream()
             .map(ing -> ing.toLowerCase().trim())
             .filter(ing -> !ing.isEmpty())
-            .collect(Collectors.toList());
+            .sorted()
+            .collect(Collectors.toUnmodifiableList());
+    }
 
-        logger.info("Processed user ingredients: {}", processedUserIngredients);
+    /**
+     * Best allowed recipe the session has not been served yet, or an empty
+     * selector when it has been served every allowed recipe. The shared cached
+     * ranking is walked first; the catalog is only ranked again with the
+     * session's exclusions and the filter once the cached ranking runs out.
+     * Rankings by quantity are not cached.
+     */
+    private TopKSelector selectUnserved(RecipeCatalog catalog, List<String> userIngredients,
+                                        SessionRotationStore.Rotation rotation, long[] allowed,
+                                        double[] entryPounds) {
+        RankingCache.Ranking ranking = entryPounds == null ? cachedRanking(catalog, userIngredients) : null;
+        if (ranking != null) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                int position = ranking.position(rank);
+                if (!rotation.isExcluded(position) && isAllowed(allowed, position)) {
+                    TopKSelector best = new TopKSelector(1);
+                    best.offer(ranking.position(rank), ranking.score(rank));
+                    best.sort();
+                    return best;
+                }
+            }
+        }
+        return rankRecipes(catalog, catalog.encodePantry(userIngredients), 1, rotation, allowed, entryPounds);
+    }
 
-        // Get all recipes with their scores, excluding the last matched recipe
-        List<Recipe> scoredRecipes = recipes.stream()
-            .filter(recipe -> !usedRecipeIds.contains(recipe.getRecipeIndex()))
-            .map(recipe -> {
-                double score = computeScore(processedUserIngredients, recipe);
-                recipe.setScore(score);
-                logger.debug("Alternative recipe: {} | Score: {} | Ingredients: {}", 
-                    recipe.getTitle(), score, recipe.getCleanedIngredients());
-                return recipe;
-            })
-            .sorted(Comparator.comparingDouble(Recipe::getScore).reversed())
-            .collect(Collectors.toList());
-
-        logger.info("Found {} potential alternative matches", scoredRecipes.size());
-
-        // If no unused recipes, reset and try again but keep the last used recipe excluded
-        if (scoredRecipes.isEmpty()) {
-            logger.info("No unused recipes found, resetting");
-            Set<String> lastUsed = new HashSet<>(usedRecipeIds);
-            usedRecipeIds.clear();
-            
-            scoredRecipes = recipes.stream()
-                .filter(recipe -> !lastUsed.contains(recipe.getRecipeIndex()))
-                .map(recipe -> {
-                    double score = computeScore(processedUserIngredients, recipe);
-                    recipe.setScore(score);
-                    logger.debug("Alternative recipe after reset: {} | Score: {} | Ingredients: {}", 
-                        recipe.getTitle(), score, recipe.getCleanedIngredients());
-                    return recipe;
-                })
-                .sorted(Comparator.comparingDouble(Recipe::getScore).reversed())
-                .collect(Collectors.toList());
+    /**
+     * Best scoring unserved, allowed neighbor of the session's last served
+     * recipe, ties going to the more similar; an empty selector when there is
+     * none. Only the neighbors are scored.
+     */
+    private TopKSelector selectNeighbor(RecipeCatalog catalog, List<String> userIngredients,
+                                        SessionRotationStore.Rotation rotation, long[] allowed) {
+        TopKSelector best = new TopKSelector(1);
+        int last = rotation.lastServed();
+        if (last < 0 || last >= catalog.size()) {
+            return best;
         }
+        PantryScorer scorer = null;
+        int bestPosition = -1;
+        double bestScore = 0.0;
+        for (int position : catalog.getNeighbors().neighbors(last)) {
+            if (rotation.isExcluded(position) || !isAllowed(allowed, position)) {
+                continue;
+            }
+            if (scorer == null) {
+                // Scoring a handful of recipes does not pay for the bitset masks
+                scorer = new MergePantryScorer(catalog, catalog.encodePantry(userIngredients));
+            }
+            double score = scorer.score(position);
+            if (bestPosition < 0 || score > bestScore) {
+                bestPosition = position;
+                bestScore = score;
+            }
+        }
+        if (bestPosition >= 0) {
+            best.offer(bestPosition, bestScore);
+        }
+        best.sort();
+        return best;
+    }
 
-        // Always return a recipe, even if it's a poor match
-        if (!scoredRecipes.isEmpty()) {
-            Recipe alternativeRecipe = scoredRecipes.get(0);
-            logger.info("Best alternative selected: {} | Score: {} | Ingredients: {}", 
-                alternativeRecipe.getTitle(), alternativeRecipe.getScore(), alternativeRecipe.getCleanedIngredients());
-            usedRecipeIds.add(alternativeRecipe.getRecipeIndex());
-            updateTotalFoodSaved(alternativeRecipe);
-            return alternativeRecipe;
+    /**
+     * Top of the full ranking for a normalized pantry, from the cache when
+     * possible; null when caching is disabled.
+     */
+    private RankingCache.Ranking cachedRanking(RecipeCatalog catalog, List<String> userIngredients) {
+        RankingCache cache = rankingCache;
+        if (!cache.isEnabled()) {
+            return null;
         }
+        RankingCache.Ranking ranking = cache.get(catalog.getVersion(), userIngredients);
+        if (ranking == null) {
+            ranking = rankAndCache(catalog, userIngredients, catalog.encodePantry(userIngredients));
+        }
+        return ranking;
+    }
+
+    private RankingCache.Ranking rankAndCache(RecipeCatalog catalog, List<String> userIngredients,
+                                              int[][] pantryTermIds) {
+        RankingCache.Ranking ranking =
+            RankingCache.Ranking.of(rankRecipes(catalog, pantryTermIds, rankingCacheDepth, null, null, null));
+        rankingCache.put(catalog.getVersion(), userIngredients, ranking);
+        return ranking;
+    }
 
-        // If we somehow have no recipes left, return any recipe except the last used
-        logger.warn("No recipes left, returning first available");
-        return recipes.stream()
-            .filter(recipe -> !usedRecipeIds.contains(recipe.getRecipeIndex()))
-            .findFirst()
-            .orElse(recipes.get(0));
+    /**
+     * Hit and miss counts of the ranking cache
+     */
+    public Map<String, Object> getCacheStats() {
+        RankingCache cache = rankingCache;
+        long hits = cache.getHits();
+        long misses = cache.getMisses();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", cache.isEnabled());
+        stats.put("entries", cache.size());
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        return stats;
     }
 
-    private double computeScore(List<String> userIngredients, Recipe recipe) {
-        if (recipe.getCleanedIngredients() == null || recipe.getCleanedIngredients().isEmpty()) {
-            logger.debug("Recipe has no ingredients: {}", recipe.getTitle());
-            return 0.0;
+    /**
+     * What deduplication collapsed when the current catalog was loaded: the
+     * counts, and the first limit duplicates with the recipe kept for each
+     */
+    public Map<String, Object> getDuplicateReport(int limit) {
+        RecipeDeduplicator.Report report = duplicateReport;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("enabled", report != null);
+        if (report == null) {
+            return summary;
         }
+        summary.put("recipesRead", report.getRecipesRead());
+        summary.put("recipesKept", report.getKept().size());
+        summary.put("exactDuplicates", report.exactCount());
+        summary.put("nearDuplicates", report.getDuplicates().size() - report.exactCount());
+        List<Map<String, Object>> duplicates = new ArrayList<>();
+        for (RecipeDeduplicator.Duplicate duplicate
+                : report.getDuplicates().subList(0, Math.min(limit, report.getDuplicates().size()))) {
+            duplicates.add(duplicate.toMap());
+        }
+        summary.put("duplicates", duplicates);
+        return summary;
+    }
 
-        List<String> recipeIngredients = recipe.getCleanedIngredients().stream()
-            .map(String::toLowerCase)
-            .collect(Collectors.toList());
+    public List<ScoredRecipe> getTopRecipes(List<String> userIngredients, int k) {
+        return getTopRecipes(userIngredients, k, null);
+    }
 
-        long matchCount = userIngredients.stream()
-            .filter(userIng -> recipeIngredients.stream()
-                .anyMatch(recipeIng -> recipeIng.contains(userIng)))
-            .count();
+    /**
+     * The k best recipes meeting the filter for the given ingredients with their
+     * scores, best first. This is a read-only ranking: it ignores and does not
+     * advance the rotation of recently served recipes.
+     */
+    public List<ScoredRecipe> getTopRecipes(List<String> userIngredients, int k, RecipeFilter filter) {
+        return getTopRecipes(userIngredients, k, filter, null);
+    }
 
-        double score = (double) matchCount / recipeIngredients.size();
-        logger.debug("Score calculation: {} matches out of {} ingredients = {}", 
-            matchCount, recipeIngredients.size(), score);
-        
-        // Enhance scoring by considering ingredient weights
-        if (recipe.getIngredientWeights() != null && !recipe.getIngredientWeights().isEmpty()) {
-            double weightedScore = 0.0;
-            for (String userIng : userIngredients) {
-                for (Map.Entry<String, Double> entry : recipe.getIngredientWeights().entrySet()) {
-                    if (entry.getKey().toLowerCase().contains(userIng)) {
-                        weightedScore += entry.getValue();
-                    }
+    /**
+     * Like getTopRecipes, favoring recipes that use up more of the given
+     * quantities, in pounds by pantry item
+     */
+    public List<ScoredRecipe> getTopRecipes(List<String> userIngredients, int k, RecipeFilter filter,
+                                            Map<String, Double> quantities) {
+        RecipeCatalog catalog = this.catalog;
+        if (userIngredients == null || userIngredients.isEmpty() || catalog.size() == 0) {
+            logger.warn("Invalid input or no recipes available for top recipes");
+            return Collections.emptyList();
+        }
+
+        List<String> processedUserIngredients = preprocessIngredients(userIngredients);
+        long[] allowed = catalog.allowed(filter);
+        double[] entryPounds = entryPounds(processedUserIngredients, quantities);
+        List<ScoredRecipe> results = null;
+        if (usesCache(k) && entryPounds == null) {
+            results = topFromRanking(catalog, cachedRanking(catalog, processedUserIngredients), k, allowed);
+        }
+        if (results == null) {
+            results = scored(catalog,
+                rankRecipes(catalog, catalog.encodePantry(processedUserIngredients), k, null, allowed, entryPounds));
+        }
+        logger.info("Top {} recipes selected for ingredients: {}", results.size(), processedUserIngredients);
+        return results;
+    }
+
+    /**
+     * The k best recipes meeting the filter for each pantry, in the order the
+     * pantries were given; a missing or empty pantry gets an empty list. Like
+     * getTopRecipes, but the batch shares its work: identical pantries are
+     * ranked once, cached rankings are looked up first, the pantries left over
+     * are encoded together in one pass over the ingredient dictionary, and
+     * they are then ranked in parallel when parallel scoring is enabled.
+     */
+    public List<List<ScoredRecipe>> getTopRecipesBatch(List<List<String>> pantries, int k, RecipeFilter filter) {
+        RecipeCatalog catalog = this.catalog;
+        if (pantries == null || pantries.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Normalize once and rank each distinct pantry once
+        Map<List<String>, Integer> distinct = new LinkedHashMap<>();
+        int[] slots = new int[pantries.size()];
+        for (int i = 0; i < pantries.size(); i++) {
+            List<String> pantry = pantries.get(i);
+            slots[i] = pantry == null || pantry.isEmpty() || catalog.size() == 0 ? -1
+                : distinct.computeIfAbsent(preprocessIngredients(pantry), key -> distinct.size());
+        }
+        List<List<String>> distinctPantries = new ArrayList<>(distinct.keySet());
+        // Filled in from the pool's threads when the pantries are ranked in parallel
+        AtomicReferenceArray<List<ScoredRecipe>> results = new AtomicReferenceArray<>(distinctPantries.size());
+
+        long[] allowed = catalog.allowed(filter);
+        boolean cached = usesCache(k);
+        List<Integer> unresolved = new ArrayList<>();
+        for (int p = 0; p < distinctPantries.size(); p++) {
+            RankingCache.Ranking ranking = cached ? rankingCache.get(catalog.getVersion(), distinctPantries.get(p)) : null;
+            results.set(p, ranking != null ? topFromRanking(catalog, ranking, k, allowed) : null);
+            if (results.get(p) == null) {
+                unresolved.add(p);
+            }
+        }
+
+        List<List<String>> toEncode = new ArrayList<>(unresolved.size());
+        for (int p : unresolved) {
+            toEncode.add(distinctPantries.get(p));
+        }
+        int[][][] pantryTermIds = catalog.encodePantries(toEncode);
+        IntConsumer rank = u -> {
+            int p = unresolved.get(u);
+            List<ScoredRecipe> top = null;
+            if (cached) {
+                top = topFromRanking(catalog, rankAndCache(catalog, distinctPantries.get(p), pantryTermIds[u]), k, allowed);
+            }
+            if (top == null) {
+                top = scored(catalog, rankRecipes(catalog, pantryTermIds[u], k, null, allowed, null));
+            }
+            results.set(p, top);
+        };
+        ParallelRecipeScorer scorer = parallelScorer;
+        if (scorer != null && unresolved.size() > 1) {
+            scorer.forEach(unresolved.size(), rank);
+        } else {
+            for (int u = 0; u < unresolved.size(); u++) {
+                rank.accept(u);
+            }
+        }
+
+        List<List<ScoredRecipe>> batch = new ArrayList<>(pantries.size());
+        for (int slot : slots) {
+            batch.add(slot >= 0 ? results.get(slot) : Collections.emptyList());
+        }
+        logger.info("Ranked {} pantries ({} distinct, {} from cache)", pantries.size(), distinctPantries.size(),
+            distinctPantries.size() - unresolved.size());
+        return batch;
+    }
+
+    /**
+     * Up to k recipes meeting the filter that miss at most maxMissing of their
+     * cleaned ingredients, fewest missing first, then best score, then catalog
+     * order. Each comes with the ingredients the pantry does not cover. Only
+     * recipes sharing an ingredient with the pantry qualify, and they are found
+     * by count-merging the postings of the covered ingredients rather than by
+     * scanning the catalog.
+     */
+    public List<PartialMatch> getRecipesMissingAtMost(List<String> userIngredients, int maxMissing, int k,
+                                                      RecipeFilter filter) {
+        RecipeCatalog catalog = this.catalog;
+        if (userIngredients == null || userIngredients.isEmpty() || catalog.size() == 0) {
+            logger.warn("Invalid input or no recipes available for partial matches");
+            return Collections.emptyList();
+        }
+
+        List<String> processedUserIngredients = preprocessIngredients(userIngredients);
+        int[][] pantryTermIds = catalog.encodePantry(processedUserIngredients);
+        int[] covered = RecipeCatalog.coveredTerms(pantryTermIds);
+        RecipeIndex.TermCounts counts = catalog.getIngredientIndex().countTerms(covered);
+        long[] allowed = catalog.allowed(filter);
+
+        // One selector per missing count, so fewer missing always ranks first
+        PantryScorer pantryScorer = pantryScorer(catalog, pantryTermIds);
+        TopKSelector[] byMissing = new TopKSelector[maxMissing + 1];
+        int[] termOffsets = catalog.getTermOffsets();
+        try {
+            for (int i = 0; i < counts.size(); i++) {
+                int position = counts.position(i);
+                int missing = termOffsets[position + 1] - termOffsets[position] - counts.count(i);
+                if (missing > maxMissing || !isAllowed(allowed, position)) {
+                    continue;
+                }
+                if (byMissing[missing] == null) {
+                    byMissing[missing] = new TopKSelector(k);
                 }
+                byMissing[missing].offer(position, pantryScorer.score(position));
             }
-            score = (score + weightedScore) / 2;
-            logger.debug("Weighted score calculation: {} + {} = {}", score, weightedScore, score);
+        } finally {
+            pantryScorer.release();
+        }
+
+        List<PartialMatch> results = new ArrayList<>(k);
+        for (TopKSelector selector : byMissing) {
+            if (selector == null) {
+                continue;
+            }
+            selector.sort();
+            for (int rank = 0; rank < selector.size() && results.size() < k; rank++) {
+                Recipe recipe = catalog.get(selector.id(rank));
+                results.add(new PartialMatch(new Recipe(recipe, selector.score(rank)),
+                    selector.score(rank), missingIngredients(catalog, recipe, covered)));
+            }
+        }
+        logger.info("{} recipes missing at most {} ingredients for: {} ({} share an ingredient)",
+            results.size(), maxMissing, processedUserIngredients, counts.size());
+        return results;
+    }
+
+    /**
+     * Cleaned ingredients of a recipe whose term is not covered, one per term
+     */
+    private static List<String> missingIngredients(RecipeCatalog catalog, Recipe recipe, int[] covered) {
+        List<String> missing = new ArrayList<>();
+        Set<Integer> listed = new HashSet<>();
+        for (String ingredient : recipe.getCleanedIngredients()) {
+            if (ingredient == null) {
+                continue;
+            }
+            int termId = catalog.getDictionary().idOf(ingredient.toLowerCase());
+            if (Arrays.binarySearch(covered, termId) < 0 && listed.add(termId)) {
+                missing.add(ingredient);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Items of the session's stored pantry, preprocessed and sorted
+     */
+    public List<String> getPantry(String sessionId) {
+        RecipeCatalog catalog = this.catalog;
+        IncrementalPantry pantry = pantries.get(sessionId, catalog);
+        synchronized (pantry) {
+            pantry.use(catalog);
+            return pantry.getItems();
+        }
+    }
+
+    /**
+     * Replace the session's stored pantry
+     */
+    public List<String> setPantry(String sessionId, List<String> userIngredients) {
+        RecipeCatalog catalog = this.catalog;
+        IncrementalPantry pantry = pantries.get(sessionId, catalog);
+        synchronized (pantry) {
+            pantry.use(catalog);
+            pantry.clear();
+            for (String item : preprocessIngredients(userIngredients)) {
+                pantry.add(item);
+            }
+            return pantry.getItems();
         }
-        
-        return score;
     }
 
-    private void updateTotalFoodSaved(Recipe recipe) {
-        if (recipe.getEstimatedPounds() != null && !recipe.getEstimatedPounds().isEmpty()) {
-            try {
-                double pounds = Double.parseDouble(recipe.getEstimatedPounds());
-                totalFoodSaved += pounds;
-                logger.info("Updated total food saved: {} lbs", totalFoodSaved);
-            } catch (NumberFormatException e) {
-                logger.warn("Invalid estimated pounds value: {}", recipe.getEstimatedPounds());
+    /**
+     * Add an item to the session's stored pantry, rescoring only the recipes
+     * in the postings of its terms
+     */
+    public List<String> addPantryItem(String sessionId, String ingredient) {
+        return addPantryItem(sessionId, ingredient, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Add an item unless the stored pantry already holds maxItems; returns
+     * null, leaving the pantry as it was, when it is full
+     */
+    public List<String> addPantryItem(String sessionId, String ingredient, int maxItems) {
+        RecipeCatalog catalog = this.catalog;
+        IncrementalPantry pantry = pantries.get(sessionId, catalog);
+        synchronized (pantry) {
+            pantry.use(catalog);
+            String item = ingredient.toLowerCase().trim();
+            if (!item.isEmpty()) {
+                if (pantry.size() >= maxItems) {
+                    return null;
+                }
+                pantry.add(item);
             }
+            return pantry.getItems();
+        }
+    }
+
+    /**
+     * Remove one occurrence of an item from the session's stored pantry;
+     * returns false when the pantry does not hold it
+     */
+    public boolean removePantryItem(String sessionId, String ingredient) {
+        RecipeCatalog catalog = this.catalog;
+        IncrementalPantry pantry = pantries.get(sessionId, catalog);
+        synchronized (pantry) {
+            pantry.use(catalog);
+            return pantry.remove(ingredient.toLowerCase().trim());
+        }
+    }
+
+    /**
+     * The k best recipes for the session's stored pantry, read off its
+     * maintained ranking without scanning the catalog. Ranks as
+     * getTopRecipes does for the same pantry.
+     */
+    public List<ScoredRecipe> getPantryTopRecipes(String sessionId, int k) {
+        RecipeCatalog catalog = this.catalog;
+        IncrementalPantry pantry = pantries.get(sessionId, catalog);
+        IncrementalPantry.TopRecipes top;
+        synchronized (pantry) {
+            pantry.use(catalog);
+            top = pantry.top(k);
+        }
+        List<ScoredRecipe> results = new ArrayList<>(top.size());
+        for (int rank = 0; rank < top.size(); rank++) {
+            results.add(new ScoredRecipe(catalog.get(top.position(rank)), top.score(rank)));
+        }
+        return results;
+    }
+
+    /**
+     * The k ingredients that most often appear alongside the given ones across
+     * the catalog, answered from the co-occurrence matrix. Each pantry item
+     * stands for the ingredient named exactly like it, or else the few most
+     * used ingredients containing it.
+     */
+    public List<IngredientSuggestion> getPairings(List<String> userIngredients, int k) {
+        RecipeCatalog catalog = this.catalog;
+        if (userIngredients == null || userIngredients.isEmpty() || catalog.size() == 0) {
+            return Collections.emptyList();
+        }
+        return cooccurrence.suggest(preprocessIngredients(userIngredients), k);
+    }
+
+    private boolean usesCache(int k) {
+        return k <= rankingCacheDepth && rankingCache.isEnabled();
+    }
+
+    /**
+     * The first k allowed entries of a cached ranking, or null when the ranking
+     * cannot tell: it was cut off at the cache depth before k were found.
+     */
+    private List<ScoredRecipe> topFromRanking(RecipeCatalog catalog, RankingCache.Ranking ranking, int k,
+                                              long[] allowed) {
+        List<ScoredRecipe> results = new ArrayList<>(k);
+        for (int rank = 0; rank < ranking.size() && results.size() < k; rank++) {
+            if (isAllowed(allowed, ranking.position(rank))) {
+                results.add(new ScoredRecipe(catalog.get(ranking.position(rank)), ranking.score(rank)));
+            }
+        }
+        // A full-depth ranking may have cut off allowed recipes further down
+        return results.size() < k && ranking.size() == rankingCacheDepth ? null : results;
+    }
+
+    private static List<ScoredRecipe> scored(RecipeCatalog catalog, TopKSelector sorted) {
+        List<ScoredRecipe> results = new ArrayList<>(sorted.size());
+        for (int rank = 0; rank < sorted.size(); rank++) {
+            results.add(new ScoredRecipe(catalog.get(sorted.id(rank)), sorted.score(rank)));
+        }
+        return results;
+    }
+
+    /**
+     * Keep the k highest scoring recipes, ties going to the earliest in the
+     * catalog. Only candidates from the index are scored; every other recipe
+     * shares no ingredient with the pantry and scores zero, so the first k of
+     * them in catalog order stand in for the rest. Recipes the rotation has
+     * excluded or the allowed bitset leaves out are skipped before scoring;
+     * pass null for either to rank the whole catalog. Pass per-entry pounds
+     * to score by quantity as well, or null.
+     */
+    private TopKSelector rankRecipes(RecipeCatalog catalog, int[][] pantryTermIds, int k,
+                                     SessionRotationStore.Rotation rotation, long[] allowed,
+                                     double[] entryPounds) {
+        int[] candidates = retainAllowed(catalog.getIndex().candidates(pantryTermIds), allowed);
+        logger.info("Found {} potential matches", candidates.length);
+
+        PantryScorer pantryScorer = pantryScorer(catalog, pantryTermIds);
+        if (entryPounds != null) {
+            pantryScorer = new QuantityPantryScorer(catalog, pantryScorer, pantryTermIds, entryPounds);
+        }
+        ParallelRecipeScorer scorer = parallelScorer;
+        TopKSelector topRecipes;
+        try {
+            topRecipes = scorer != null && scorer.isWorthwhile(candidates.length)
+                ? scorer.score(catalog, pantryScorer, candidates, k, rotation)
+                : scoreCandidates(catalog, pantryScorer, candidates, 0, candidates.length, k, rotation);
+        } finally {
+            pantryScorer.release();
+        }
+
+        int zeroScored = 0;
+        int nextCandidate = 0;
+        for (int position = nextAllowed(allowed, 0, catalog.size()); position >= 0 && zeroScored < k;
+             position = nextAllowed(allowed, position + 1, catalog.size())) {
+            if (topRecipes.isFull() && topRecipes.worstScore() > 0.0) {
+                break;
+            }
+            while (nextCandidate < candidates.length && candidates[nextCandidate] < position) {
+                nextCandidate++;
+            }
+            if (nextCandidate < candidates.length && candidates[nextCandidate] == position) {
+                continue;
+            }
+            if (rotation != null && rotation.isExcluded(position)) {
+                continue;
+            }
+            topRecipes.offer(position, 0.0);
+            zeroScored++;
+        }
+
+        topRecipes.sort();
+        return topRecipes;
+    }
+
+    /**
+     * Score candidates[from, to) and keep the best k, skipping recipes the
+     * rotation excludes. Reads shared state only, so chunks of one candidate
+     * array can be scored on different threads.
+     */
+    static TopKSelector scoreCandidates(RecipeCatalog catalog, PantryScorer scorer, int[] candidates,
+                                        int from, int to, int k, SessionRotationStore.Rotation rotation) {
+        boolean trace = logger.isTraceEnabled();
+        TopKSelector topRecipes = new TopKSelector(k);
+        for (int i = from; i < to; i++) {
+            int position = candidates[i];
+            if (rotation != null && rotation.isExcluded(position)) {
+                continue;
+            }
+            double score = scorer.score(position);
+            if (trace) {
+                Recipe recipe = catalog.get(position);
+                logger.trace("Recipe: {} | Score: {} | Ingredients: {}", 
+                    recipe.getTitle(), score, recipe.getCleanedIngredients());
+            }
+            topRecipes.offer(position, score);
+        }
+        return topRecipes;
+    }
+
+    /**
+     * Scorer of the configured engine for one encoded pantry
+     */
+    PantryScorer pantryScorer(RecipeCatalog catalog, int[][] pantryTermIds) {
+        return bitsetScoring ? new BitsetPantryScorer(catalog, pantryTermIds)
+            : new MergePantryScorer(catalog, pantryTermIds);
+    }
+
+    /**
+     * Pounds of each preprocessed pantry entry from quantities keyed by pantry
+     * item, NaN for entries without one, or null when no entry has a positive
+     * quantity. A repeated item gets its quantity once.
+     */
+    private static double[] entryPounds(List<String> processedUserIngredients, Map<String, Double> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            return null;
+        }
+        Map<String, Double> byItem = new HashMap<>();
+        for (Map.Entry<String, Double> entry : quantities.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                byItem.put(entry.getKey().toLowerCase().trim(), entry.getValue());
+            }
+        }
+        double[] pounds = new double[processedUserIngredients.size()];
+        boolean any = false;
+        for (int i = 0; i < pounds.length; i++) {
+            Double quantity = byItem.remove(processedUserIngredients.get(i));
+            pounds[i] = quantity != null ? quantity : Double.NaN;
+            any |= pounds[i] > 0.0;
+        }
+        return any ? pounds : null;
+    }
+
+    private static boolean isAllowed(long[] allowed, int position) {
+        return allowed == null || (allowed[position >>> 6] & (1L << position)) != 0;
+    }
+
+    /**
+     * First allowed position at or after from, or -1 when there is none
+     */
+    private static int nextAllowed(long[] allowed, int from, int size) {
+        if (allowed == null) {
+            return from < size ? from : -1;
+        }
+        int wordIndex = from >>> 6;
+        if (wordIndex >= allowed.length) {
+            return -1;
+        }
+        long word = allowed[wordIndex] & (-1L << from);
+        while (word == 0) {
+            if (++wordIndex == allowed.length) {
+                return -1;
+            }
+            word = allowed[wordIndex];
+        }
+        return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private static int[] retainAllowed(int[] candidates, long[] allowed) {
+        if (allowed == null) {
+            return candidates;
+        }
+        int count = 0;
+        for (int position : candidates) {
+            if (isAllowed(allowed, position)) {
+                candidates[count++] = position;
+            }
+        }
+        return count == candidates.length ? candidates : Arrays.copyOf(candidates, count);
+    }
+
+    private void updateTotalFoodSaved(RecipeCatalog catalog, int position) {
+        double pounds = catalog.getPounds(position);
+        if (!Double.isNaN(pounds)) {
+            totalFoodSaved.add(pounds);
+            logger.info("Updated total food saved: {} lbs", totalFoodSaved.sum());
         }
     }
 
     public double getTotalFoodSaved() {
-        return totalFoodSaved;
+        return totalFoodSaved.sum();
     }
 }
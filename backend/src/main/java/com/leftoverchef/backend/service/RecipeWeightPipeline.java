@@ -0,0 +1,383 @@
+package com.leftoverchef.backend.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.leftoverchef.backend.util.IngredientWeightCalculator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Command line step that fills in Estimated_Pounds for a raw recipe catalog,
+ * taking over from scripts/update_recipe_weights.py. A recipe's weight is the
+ * sum of its cleaned ingredients as weighed by IngredientWeightCalculator,
+ * scaled for how the dish is cooked and clamped to between a quarter pound
+ * and ten pounds, as the script did. Recipes that already have a weight keep
+ * it unless --recompute is given. A Cleaned_Ingredients written as the text
+ * of a Python list, as some exports have it, is parsed the way
+ * scripts/clean_recipe_data.py does and written back as a JSON array; a
+ * recipe without a usable list is counted, logged and copied through. Every
+ * other field is copied through as is.
+ *
+ * Recipes are streamed in and out in batches: one thread parses and writes
+ * while the batches in between are weighed on all cores, and at most two
+ * batches per core are held at once, so memory stays bounded however large
+ * the file is. The output keeps the input order, as a {"recipes": [...]}
+ * document, gzip-compressed when its name ends in .gz. Run it from the
+ * packaged jar with
+ *
+ * <pre>
+ * java -cp backend.jar -Dloader.main=com.leftoverchef.backend.service.RecipeWeightPipeline \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher [--recompute] raw.json[.gz] recipes.json[.gz]
+ * </pre>
+ */
+public final class RecipeWeightPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(RecipeWeightPipeline.class);
+    private static final int DEFAULT_BATCH_SIZE = 1024;
+    private static final double MIN_RECIPE_POUNDS = 0.25;
+    private static final double MAX_RECIPE_POUNDS = 10.0;
+
+    // Checked in order against the title, then the instructions; the first hit decides
+    private static final String[][] TYPE_KEYWORDS = {
+        {"soup", "broth", "chowder"},
+        {"stew", "braised", "cassoulet"},
+        {"roast", "roasted", "baked"},
+        {"fried", "sautéed", "pan-fried"},
+        {"salad", "slaw", "fresh"},
+        {"cocktail", "drink", "beverage"},
+        {"cake", "pie", "cookie", "dessert", "ice cream"},
+        {"pasta", "noodle", "spaghetti", "macaroni"},
+        {"sandwich", "burger", "wrap"},
+        {"breakfast", "pancake", "waffle", "eggs"},
+    };
+
+    // Added water, reduced liquid, moisture loss, oil and moisture loss, none,
+    // a standard drink, cooking loss, water absorption, none, moisture loss
+    private static final double[] TYPE_MODIFIERS = {1.2, 1.1, 0.85, 0.8, 1.0, 0.5, 0.85, 1.8, 1.0, 0.9};
+
+    // A failed run must not leave a closed, valid-looking document behind
+    private final ObjectMapper mapper = JsonMapper.builder().disable(StreamWriteFeature.AUTO_CLOSE_CONTENT).build();
+    private final int parallelism;
+    private final int batchSize;
+    private final boolean recompute;
+
+    RecipeWeightPipeline(int parallelism, int batchSize, boolean recompute) {
+        if (parallelism < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Parallelism and batch size must be positive");
+        }
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.recompute = recompute;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean recompute = args.length > 0 && args[0].equals("--recompute");
+        int first = recompute ? 1 : 0;
+        if (args.length - first != 2) {
+            System.err.println("Usage: RecipeWeightPipeline [--recompute] <raw.json[.gz]> <output.json[.gz]>");
+            System.exit(2);
+        }
+        new RecipeWeightPipeline(Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE, recompute)
+            .run(Paths.get(args[first]), Paths.get(args[first + 1]));
+    }
+
+    /**
+     * Weigh every recipe of input into output and return how many recipes
+     * were given a new weight. The output is written beside its target and
+     * moved into place only once complete, so a failed run leaves any
+     * previous output untouched.
+     */
+    int run(Path input, Path output) throws IOException {
+        if (!Files.isRegularFile(input)) {
+            throw new IOException("Recipe data file not found: " + input);
+        }
+        Path target = output.toAbsolutePath();
+        if (Files.exists(target) && Files.isSameFile(input, target)) {
+            throw new IOException("Output would overwrite the input: " + output);
+        }
+        long start = System.nanoTime();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        int[] counts;
+        try {
+            counts = weigh(input, temp, target.getFileName().toString().endsWith(".gz"));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Weighed {} of {} recipes from {} into {} in {} ms", counts[0], counts[1], input, output,
+            (System.nanoTime() - start) / 1_000_000);
+        if (counts[2] > 0) {
+            logger.warn("{} recipes have no Cleaned_Ingredients list that could be read and were not weighed",
+                counts[2]);
+        }
+        return counts[0];
+    }
+
+    /**
+     * Stream the recipes of input into file, returning how many were weighed,
+     * how many were read and how many had no readable ingredient list
+     */
+    private int[] weigh(Path input, Path file, boolean gzip) throws IOException {
+        AtomicInteger weighed = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        int total = 0;
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        try (InputStream in = RecipeCatalogLoader.decompress(Files.newInputStream(input));
+             JsonParser parser = mapper.getFactory().createParser(in);
+             JsonGenerator generator = mapper.getFactory().createGenerator(open(file, gzip), JsonEncoding.UTF8)) {
+            moveToRecipes(parser);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("recipes");
+
+            ArrayDeque<Future<List<JsonNode>>> pending = new ArrayDeque<>();
+            List<JsonNode> batch = new ArrayList<>(batchSize);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IOException("Unexpected end of recipe data after " + total + " recipes");
+                }
+                batch.add(mapper.readTree(parser));
+                total++;
+                if (batch.size() == batchSize) {
+                    pending.add(submit(workers, batch, weighed, skipped));
+                    batch = new ArrayList<>(batchSize);
+                    // Write the oldest batch before reading past the limit
+                    if (pending.size() >= parallelism * 2) {
+                        write(generator, pending.poll());
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                pending.add(submit(workers, batch, weighed, skipped));
+            }
+            while (!pending.isEmpty()) {
+                write(generator, pending.poll());
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } finally {
+            workers.shutdownNow();
+        }
+        return new int[] {weighed.get(), total, skipped.get()};
+    }
+
+    /**
+     * Recipe weight the way scripts/update_recipe_weights.py estimated it
+     */
+    static double estimateRecipeWeight(List<String> ingredients, String title, String instructions,
+                                       double[] weights) {
+        double base = IngredientWeightCalculator.calculateIngredientWeights(ingredients, weights);
+        int type = recipeType(title, instructions);
+        double modified = type >= 0 ? base * TYPE_MODIFIERS[type] : base;
+        return Math.max(Math.min(modified, MAX_RECIPE_POUNDS), MIN_RECIPE_POUNDS);
+    }
+
+    /**
+     * Index into TYPE_KEYWORDS of the first type the title or instructions
+     * mention, or -1 when neither mentions one
+     */
+    static int recipeType(String title, String instructions) {
+        String titleLower = title != null ? title.toLowerCase(Locale.ROOT) : "";
+        String instructionsLower = instructions != null ? instructions.toLowerCase(Locale.ROOT) : "";
+        for (int type = 0; type < TYPE_KEYWORDS.length; type++) {
+            for (String keyword : TYPE_KEYWORDS[type]) {
+                if (titleLower.contains(keyword) || instructionsLower.contains(keyword)) {
+                    return type;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private Future<List<JsonNode>> submit(ExecutorService workers, List<JsonNode> batch, AtomicInteger weighed,
+                                          AtomicInteger skipped) {
+        return workers.submit(() -> {
+            double[] weights = new double[16];
+            List<String> ingredients = new ArrayList<>();
+            for (JsonNode recipe : batch) {
+                if (!(recipe instanceof ObjectNode) || !cleanedIngredients((ObjectNode) recipe, ingredients)) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                if (!recompute && hasWeight(recipe.path("Estimated_Pounds"))) {
+                    continue;
+                }
+                if (weights.length < ingredients.size()) {
+                    weights = new double[ingredients.size()];
+                }
+                double pounds = estimateRecipeWeight(ingredients, recipe.path("Title").asText(null),
+                    recipe.path("Instructions").asText(null), weights);
+                ((ObjectNode) recipe).put("Estimated_Pounds", pounds);
+                weighed.incrementAndGet();
+            }
+            return batch;
+        });
+    }
+
+    /**
+     * Fill the caller's scratch list with the recipe's cleaned ingredients,
+     * replacing a Python list literal with the JSON array it stands for;
+     * false when the recipe has no list that can be read
+     */
+    private static boolean cleanedIngredients(ObjectNode recipe, List<String> ingredients) {
+        ingredients.clear();
+        JsonNode cleaned = recipe.path("Cleaned_Ingredients");
+        if (cleaned.isArray()) {
+            for (JsonNode ingredient : cleaned) {
+                ingredients.add(ingredient.isTextual() ? ingredient.asText() : null);
+            }
+            return true;
+        }
+        List<String> parsed = cleaned.isTextual() ? parsePythonList(cleaned.asText()) : null;
+        if (parsed == null) {
+            return false;
+        }
+        ingredients.addAll(parsed);
+        ArrayNode array = recipe.putArray("Cleaned_Ingredients");
+        parsed.forEach(array::add);
+        return true;
+    }
+
+    /**
+     * The items of a Python list of strings such as ['2 eggs', "baker's
+     * sugar"], quoted or bare, or null when the text is not one. Quotes may
+     * hold commas and backslash escapes; bare items end at the next comma.
+     */
+    static List<String> parsePythonList(String text) {
+        String list = text.trim();
+        if (list.length() < 2 || list.charAt(0) != '[' || list.charAt(list.length() - 1) != ']') {
+            return null;
+        }
+        List<String> items = new ArrayList<>();
+        int end = list.length() - 1;
+        int i = 1;
+        while (true) {
+            while (i < end && Character.isWhitespace(list.charAt(i))) {
+                i++;
+            }
+            if (i == end) {
+                return items;
+            }
+            char quote = list.charAt(i);
+            StringBuilder item = new StringBuilder();
+            if (quote == '\'' || quote == '"') {
+                i++;
+                while (i < end && list.charAt(i) != quote) {
+                    char c = list.charAt(i++);
+                    if (c == '\\' && i < end) {
+                        c = list.charAt(i++);
+                        c = c == 'n' ? '\n' : c == 't' ? '\t' : c;
+                    }
+                    item.append(c);
+                }
+                if (i == end) {
+                    return null;
+                }
+                i++;
+                while (i < end && Character.isWhitespace(list.charAt(i))) {
+                    i++;
+                }
+                if (i < end && list.charAt(i) != ',') {
+                    return null;
+                }
+                items.add(item.toString());
+            } else {
+                int comma = list.indexOf(',', i);
+                int stop = comma >= 0 && comma < end ? comma : end;
+                String bare = list.substring(i, stop).trim();
+                if (!bare.isEmpty()) {
+                    items.add(bare);
+                }
+                i = stop;
+            }
+            if (i < end) {
+                // Skip the comma
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Whether a recipe already has a positive weight, as a number or as text
+     */
+    private static boolean hasWeight(JsonNode pounds) {
+        if (pounds.isNumber()) {
+            return pounds.asDouble() > 0;
+        }
+        if (pounds.isTextual()) {
+            try {
+                return Double.parseDouble(pounds.asText().trim()) > 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void write(JsonGenerator generator, Future<List<JsonNode>> batch) throws IOException {
+        try {
+            for (JsonNode recipe : batch.get()) {
+                mapper.writeTree(generator, recipe);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while weighing recipes", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not weigh recipes", e.getCause());
+        }
+    }
+
+    /**
+     * Position the parser inside the recipes array of either a bare array or
+     * a {"recipes": [...]} wrapper
+     */
+    private static void moveToRecipes(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            return;
+        }
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && "recipes".equals(field)) {
+                    return;
+                }
+                parser.skipChildren();
+            }
+        }
+        throw new IOException("Expected a JSON array of recipes or an object with a \"recipes\" array");
+    }
+
+    private static OutputStream open(Path file, boolean gzip) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+        return gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+    }
+}
@@ -0,0 +1,78 @@
+package com.leftoverchef.backend.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-session values with a bound on idle time and on count, shared by the
+ * rotation and pantry stores. Entries are kept in access order, so the least
+ * recently used session is always first: values idle for longer than the TTL
+ * are dropped from the front on each access, and when the map is over
+ * maxSessions the front entry goes, each in constant time per entry dropped.
+ * Lookups take one short lock; callers synchronize on the values themselves
+ * for anything longer.
+ */
+final class SessionMap<V> {
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long ttlNanos;
+    private int maxSessions;
+
+    SessionMap(long ttlMillis, int maxSessions) {
+        configure(ttlMillis, maxSessions);
+    }
+
+    synchronized void configure(long ttlMillis, int maxSessions) {
+        if (ttlMillis <= 0 || maxSessions < 1) {
+            throw new IllegalArgumentException("Session TTL and session limit must be positive");
+        }
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * The session's value, created on first use, after evicting idle and
+     * surplus sessions; the session asked for is never evicted
+     */
+    synchronized V get(String sessionId, Supplier<V> create) {
+        long now = System.nanoTime();
+        Iterator<Entry<V>> oldest = entries.values().iterator();
+        while (oldest.hasNext()) {
+            if (now - oldest.next().lastAccessNanos <= ttlNanos) {
+                break;
+            }
+            oldest.remove();
+        }
+
+        Entry<V> entry = entries.get(sessionId);
+        if (entry == null) {
+            entry = new Entry<>(create.get());
+            entries.put(sessionId, entry);
+        }
+        entry.lastAccessNanos = now;
+
+        oldest = entries.values().iterator();
+        while (entries.size() > maxSessions) {
+            oldest.next();
+            oldest.remove();
+        }
+        return entry.value;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private long lastAccessNanos;
+
+        private Entry(V value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.leftoverchef.backend.service;
+
+import java.util.Arrays;
+
+/**
+ * Per-session record of the recipes already served, so each user rotates
+ * through the catalog independently. A session's state is a bitset over
+ * catalog positions, checked with one bit test per recipe. Sessions are held
+ * in a SessionMap, which evicts those idle for longer than the TTL and never
+ * holds more than maxSessions, dropping the least recently used when full.
+ * A bitset grows only as far as the highest position served, so a session
+ * holds at most catalog size / 8 bytes and the store at most maxSessions
+ * times that.
+ */
+final class SessionRotationStore {
+    private final SessionMap<Rotation> rotations;
+
+    SessionRotationStore(long ttlMillis, int maxSessions) {
+        rotations = new SessionMap<>(ttlMillis, maxSessions);
+    }
+
+    void configure(long ttlMillis, int maxSessions) {
+        rotations.configure(ttlMillis, maxSessions);
+    }
+
+    /**
+     * Rotation state for a session, created on first use. The state is reset
+     * when the catalog it was recorded against has been replaced, since
+     * positions no longer refer to the same recipes. A request still ranking
+     * against an older catalog during a reload leaves it as it is, so the
+     * state never moves back to a replaced catalog. A null session gets a
+     * fresh state that is not kept, so nothing is remembered between calls.
+     */
+    Rotation get(String sessionId, long catalogVersion) {
+        if (sessionId == null) {
+            return new Rotation(catalogVersion);
+        }
+        Rotation rotation = rotations.get(sessionId, () -> new Rotation(catalogVersion));
+        rotation.touch(catalogVersion);
+        return rotation;
+    }
+
+    void clear() {
+        rotations.clear();
+    }
+
+    int size() {
+        return rotations.size();
+    }
+
+    /**
+     * Served catalog positions of one session. Callers synchronize on the
+     * instance while ranking and marking so a session's requests see a
+     * consistent set; different sessions never contend.
+     */
+    static final class Rotation {
+        private long[] words = new long[0];
+        private int lastServed = -1;
+        private long catalogVersion;
+
+        private Rotation(long catalogVersion) {
+            this.catalogVersion = catalogVersion;
+        }
+
+        private synchronized void touch(long currentCatalogVersion) {
+            if (currentCatalogVersion > catalogVersion) {
+                catalogVersion = currentCatalogVersion;
+                words = new long[0];
+                lastServed = -1;
+            }
+        }
+
+        boolean isExcluded(int position) {
+            int word = position >>> 6;
+            return word < words.length && (words[word] & (1L << position)) != 0;
+        }
+
+        /**
+         * Position most recently excluded, or -1 when none has been since the
+         * catalog was replaced
+         */
+        int lastServed() {
+            return lastServed;
+        }
+
+        void exclude(int position) {
+            lastServed = position;
+            int word = position >>> 6;
+            if (word >= words.length) {
+                words = Arrays.copyOf(words, word + 1);
+            }
+            words[word] |= 1L << position;
+        }
+
+        void reset() {
+            Arrays.fill(words, 0L);
+        }
+    }
+}
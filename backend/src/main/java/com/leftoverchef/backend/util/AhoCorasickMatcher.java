@@ -0,0 +1,186 @@
+package com.leftoverchef.backend.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Aho-Corasick automaton over a fixed set of patterns. After compiling the
+ * patterns once, a single left-to-right pass over a text reports every pattern
+ * the text contains, so testing many patterns against many texts costs the
+ * total text length rather than patterns times texts.
+ */
+public class AhoCorasickMatcher {
+    private static final int[] NO_PATTERNS = new int[0];
+
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    private final int[][] outputs;
+    private final int patternCount;
+
+    private AhoCorasickMatcher(char[][] edgeChars, int[][] edgeTargets, int[] fail, int[][] outputs,
+                               int patternCount) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.outputs = outputs;
+        this.patternCount = patternCount;
+    }
+
+    /**
+     * Compile the patterns; pattern i is reported as index i. Empty patterns
+     * are never reported.
+     */
+    public static AhoCorasickMatcher compile(List<String> patterns) {
+        Trie trie = new Trie();
+        for (int i = 0; i < patterns.size(); i++) {
+            String pattern = patterns.get(i);
+            if (pattern == null || pattern.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int j = 0; j < pattern.length(); j++) {
+                state = trie.childOrAdd(state, pattern.charAt(j));
+            }
+            trie.addOutput(state, i);
+        }
+
+        int stateCount = trie.size;
+        char[][] edgeChars = new char[stateCount][];
+        int[][] edgeTargets = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            edgeChars[state] = Arrays.copyOf(trie.edgeChars[state], trie.edgeCounts[state]);
+            edgeTargets[state] = Arrays.copyOf(trie.edgeTargets[state], trie.edgeCounts[state]);
+        }
+
+        // Breadth-first so each failure link points at an already finished state
+        int[] fail = new int[stateCount];
+        int[][] outputs = new int[stateCount][];
+        outputs[0] = trie.outputs(0);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) {
+            fail[target] = 0;
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] inherited = outputs[fail[state]];
+            int[] own = trie.outputs(state);
+            if (inherited.length == 0) {
+                outputs[state] = own;
+            } else if (own.length == 0) {
+                outputs[state] = inherited;
+            } else {
+                int[] merged = Arrays.copyOf(own, own.length + inherited.length);
+                System.arraycopy(inherited, 0, merged, own.length, inherited.length);
+                outputs[state] = merged;
+            }
+            for (int i = 0; i < edgeChars[state].length; i++) {
+                char c = edgeChars[state][i];
+                int child = edgeTargets[state][i];
+                int fallback = fail[state];
+                while (fallback != 0 && child(edgeChars, edgeTargets, fallback, c) < 0) {
+                    fallback = fail[fallback];
+                }
+                int next = child(edgeChars, edgeTargets, fallback, c);
+                fail[child] = next >= 0 && next != child ? next : 0;
+                queue.add(child);
+            }
+        }
+        return new AhoCorasickMatcher(edgeChars, edgeTargets, fail, outputs, patterns.size());
+    }
+
+    public int patternCount() {
+        return patternCount;
+    }
+
+    /**
+     * Report the index of every pattern occurring in the text. A pattern
+     * occurring more than once may be reported more than once.
+     */
+    public void forEachMatch(CharSequence text, IntConsumer consumer) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next = child(edgeChars, edgeTargets, state, c);
+            while (next < 0 && state != 0) {
+                state = fail[state];
+                next = child(edgeChars, edgeTargets, state, c);
+            }
+            state = next < 0 ? 0 : next;
+            for (int pattern : outputs[state]) {
+                consumer.accept(pattern);
+            }
+        }
+    }
+
+    private static int child(char[][] edgeChars, int[][] edgeTargets, int state, char c) {
+        char[] chars = edgeChars[state];
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) {
+                return edgeTargets[state][i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Growable trie used only while compiling
+     */
+    private static final class Trie {
+        private char[][] edgeChars = new char[16][];
+        private int[][] edgeTargets = new int[16][];
+        private int[] edgeCounts = new int[16];
+        private int[][] ownOutputs = new int[16][];
+        private int size = 0;
+
+        private Trie() {
+            newState();
+        }
+
+        private int newState() {
+            if (size == edgeChars.length) {
+                int capacity = size * 2;
+                edgeChars = Arrays.copyOf(edgeChars, capacity);
+                edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+                edgeCounts = Arrays.copyOf(edgeCounts, capacity);
+                ownOutputs = Arrays.copyOf(ownOutputs, capacity);
+            }
+            edgeChars[size] = new char[2];
+            edgeTargets[size] = new int[2];
+            ownOutputs[size] = NO_PATTERNS;
+            return size++;
+        }
+
+        private int childOrAdd(int state, char c) {
+            int count = edgeCounts[state];
+            for (int i = 0; i < count; i++) {
+                if (edgeChars[state][i] == c) {
+                    return edgeTargets[state][i];
+                }
+            }
+            int child = newState();
+            if (count == edgeChars[state].length) {
+                edgeChars[state] = Arrays.copyOf(edgeChars[state], count * 2);
+                edgeTargets[state] = Arrays.copyOf(edgeTargets[state], count * 2);
+            }
+            edgeChars[state][count] = c;
+            edgeTargets[state][count] = child;
+            edgeCounts[state] = count + 1;
+            return child;
+        }
+
+        private void addOutput(int state, int pattern) {
+            int[] current = ownOutputs[state];
+            int[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = pattern;
+            ownOutputs[state] = updated;
+        }
+
+        private int[] outputs(int state) {
+            return ownOutputs[state];
+        }
+    }
+}
@@ -1,90 +1,419 @@
 package com.leftoverchef.backend.util;
 
-import java.util.HashMap;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.IntConsumer;
 
+/**
+ * Estimates the pounds of food an ingredient line uses. The first quantity
+ * followed by a known unit wins ("1 1/2 cups", "½ lb.", "2-3 tbsp", "3½–4-lb."),
+ * ranges counting as their midpoint; without one the ingredient is weighed
+ * by type, and unknown ingredients default to a quarter pound.
+ *
+ * Units and ingredient types come from ingredient_weights.json, the table
+ * scripts/update_recipe_weights.py reads too. When several types occur in a
+ * line the longest wins, so "sweet potato roast" is a potato and "pork
+ * tenderloin" a tenderloin; types of equal length go to the one listed first.
+ *
+ * Lines are read by a hand-written scanner, character by character and
+ * without lowercasing, splitting or regex matching, so weighing allocates
+ * nothing. Each thread reuses one scanner.
+ */
 public class IngredientWeightCalculator {
-    private static final Map<String, Map<String, Double>> INGREDIENT_WEIGHTS = new HashMap<>();
-    private static final Map<String, Double> MEASUREMENT_CONVERSIONS = new HashMap<>();
-    
+    static final String WEIGHTS_RESOURCE = "/ingredient_weights.json";
+    private static final double DEFAULT_WEIGHT = 0.25;
+
+    private static final String[] UNIT_NAMES;
+    private static final double[] UNIT_POUNDS;
+    private static final String[] TYPE_NAMES;
+    private static final double[] TYPE_POUNDS;
+    private static final AhoCorasickMatcher TYPE_MATCHER;
+
+    private static final ThreadLocal<QuantityScanner> SCANNERS = ThreadLocal.withInitial(QuantityScanner::new);
+
     static {
-        // Initialize ingredient weights
-        Map<String, Double> chickenWeights = new HashMap<>();
-        chickenWeights.put("whole", 4.0);
-        chickenWeights.put("breast", 0.5);
-        chickenWeights.put("thigh", 0.375);
-        chickenWeights.put("wing", 0.25);
-        INGREDIENT_WEIGHTS.put("chicken", chickenWeights);
-
-        Map<String, Double> beefWeights = new HashMap<>();
-        beefWeights.put("ground", 1.0);
-        beefWeights.put("steak", 0.75);
-        beefWeights.put("roast", 3.0);
-        INGREDIENT_WEIGHTS.put("beef", beefWeights);
-
-        Map<String, Double> vegetableWeights = new HashMap<>();
-        vegetableWeights.put("onion", 0.5);
-        vegetableWeights.put("potato", 0.375);
-        vegetableWeights.put("carrot", 0.25);
-        vegetableWeights.put("squash", 1.5);
-        vegetableWeights.put("tomato", 0.375);
-        vegetableWeights.put("pepper", 0.25);
-        vegetableWeights.put("garlic", 0.0625);
-        INGREDIENT_WEIGHTS.put("vegetables", vegetableWeights);
-
-        // Initialize measurement conversions
-        MEASUREMENT_CONVERSIONS.put("cup", 0.5);
-        MEASUREMENT_CONVERSIONS.put("tablespoon", 0.0625);
-        MEASUREMENT_CONVERSIONS.put("teaspoon", 0.0208);
-        MEASUREMENT_CONVERSIONS.put("ounce", 0.0625);
-        MEASUREMENT_CONVERSIONS.put("pound", 1.0);
-        MEASUREMENT_CONVERSIONS.put("gram", 0.0022);
+        JsonNode table = readTable();
+
+        // Flatten both tables into arrays the scanner walks without iterators
+        List<String> unitNames = new ArrayList<>();
+        List<Double> unitPounds = new ArrayList<>();
+        for (Iterator<Map.Entry<String, JsonNode>> units = table.path("units").fields(); units.hasNext(); ) {
+            Map.Entry<String, JsonNode> unit = units.next();
+            double pounds = pounds(unit.getKey(), unit.getValue().path("pounds"));
+            unitNames.add(unit.getKey());
+            unitPounds.add(pounds);
+            for (JsonNode spelling : unit.getValue().path("spellings")) {
+                String name = spelling.asText().toLowerCase(Locale.ROOT);
+                if (!name.equals(unit.getKey())) {
+                    unitNames.add(name);
+                    unitPounds.add(pounds);
+                }
+            }
+        }
+        UNIT_NAMES = unitNames.toArray(new String[0]);
+        UNIT_POUNDS = unitPounds.stream().mapToDouble(Double::doubleValue).toArray();
+
+        List<String> typeNames = new ArrayList<>();
+        List<Double> typePounds = new ArrayList<>();
+        for (JsonNode category : table.path("ingredients")) {
+            for (Iterator<Map.Entry<String, JsonNode>> items = category.fields(); items.hasNext(); ) {
+                Map.Entry<String, JsonNode> item = items.next();
+                typeNames.add(item.getKey().toLowerCase(Locale.ROOT));
+                typePounds.add(pounds(item.getKey(), item.getValue()));
+            }
+        }
+        if (UNIT_NAMES.length == 0 || typeNames.isEmpty()) {
+            throw new IllegalStateException(WEIGHTS_RESOURCE + " must list units and ingredients");
+        }
+        TYPE_NAMES = typeNames.toArray(new String[0]);
+        TYPE_POUNDS = typePounds.stream().mapToDouble(Double::doubleValue).toArray();
+        TYPE_MATCHER = AhoCorasickMatcher.compile(typeNames);
+    }
+
+    private static JsonNode readTable() {
+        try (InputStream inputStream = IngredientWeightCalculator.class.getResourceAsStream(WEIGHTS_RESOURCE)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Missing weight table " + WEIGHTS_RESOURCE);
+            }
+            return new ObjectMapper().readTree(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read weight table " + WEIGHTS_RESOURCE, e);
+        }
+    }
+
+    private static double pounds(String name, JsonNode value) {
+        if (!value.isNumber() || !(value.asDouble() > 0) || Double.isInfinite(value.asDouble())) {
+            throw new IllegalStateException("Weight of " + name + " in " + WEIGHTS_RESOURCE
+                + " must be a positive number of pounds");
+        }
+        return value.asDouble();
     }
 
     public static double calculateIngredientWeight(String ingredient) {
-        String ingredientLower = ingredient.toLowerCase();
-        
-        // Extract quantity and unit using regex
-        Pattern pattern = Pattern.compile("(\\d+(?:/\\d+)?|\\d*\\.\\d+)\\s*(cup|tablespoon|teaspoon|pound|ounce|lb|oz|g)s?");
-        Matcher matcher = pattern.matcher(ingredientLower);
-        
-        if (matcher.find()) {
-            String quantityStr = matcher.group(1);
-            String unit = matcher.group(2);
-            
-            // Convert fraction to decimal if necessary
-            double quantity;
-            if (quantityStr.contains("/")) {
-                String[] fraction = quantityStr.split("/");
-                quantity = Double.parseDouble(fraction[0]) / Double.parseDouble(fraction[1]);
+        return SCANNERS.get().weigh(ingredient);
+    }
+
+    /**
+     * The ingredient a recipe line names, without a leading amount and unit
+     * or the preparation after a comma: "2 cups chopped onion, divided" names
+     * "chopped onion". A line that is nothing but an amount is kept whole.
+     */
+    public static String ingredientName(String ingredient) {
+        return SCANNERS.get().name(ingredient);
+    }
+
+    /**
+     * Pounds of a quantity given apart from its item, as pantries send them,
+     * weighed exactly as the recipe line "quantity item" would be: a
+     * measurement ("2 lb", "1/2 cup") by its unit, and a count without a unit
+     * ("3", "2 large") by the item's type alone, so that a pantry quantity
+     * and a recipe line of the same count weigh the same.
+     */
+    public static double calculateQuantityWeight(String quantity, String item) {
+        return calculateIngredientWeight(quantity.trim() + " " + item);
+    }
+
+    /**
+     * Weigh a whole recipe's ingredient lines in one pass with one scanner,
+     * storing each line's pounds in weights (at least as long as the list;
+     * a null line weighs nothing) and returning the total
+     */
+    public static double calculateIngredientWeights(List<String> ingredients, double[] weights) {
+        QuantityScanner scanner = SCANNERS.get();
+        double total = 0.0;
+        for (int i = 0; i < ingredients.size(); i++) {
+            String ingredient = ingredients.get(i);
+            weights[i] = ingredient != null ? scanner.weigh(ingredient) : 0.0;
+            total += weights[i];
+        }
+        return total;
+    }
+
+    /**
+     * Reads one line at a time; its fields carry the line, the scan position,
+     * whether the last number had a decimal part and the best type matched,
+     * so nothing is allocated per line.
+     */
+    private static final class QuantityScanner {
+        private final CharSequence lowerCase = new LowerCaseText();
+        private final IntConsumer offerType = this::offerType;
+        private String text;
+        private int length;
+        private int pos;
+        private boolean decimal;
+        private int bestType;
+
+        double weigh(String ingredient) {
+            text = ingredient;
+            length = ingredient.length();
+            try {
+                for (int i = 0; i < length; i++) {
+                    if (!startsAmount(i) || (i > 0 && continuesAmount(text.charAt(i - 1)))) {
+                        continue;
+                    }
+                    double quantity = quantity(i);
+                    if (Double.isNaN(quantity)) {
+                        continue;
+                    }
+                    int unit = unit(pos);
+                    if (unit >= 0) {
+                        return quantity * UNIT_POUNDS[unit];
+                    }
+                    i = pos - 1;
+                }
+                return weighByType();
+            } finally {
+                text = null;
+            }
+        }
+
+        String name(String ingredient) {
+            text = ingredient;
+            length = ingredient.length();
+            try {
+                int start = skipSpaces(0);
+                if (startsAmount(start) && !Double.isNaN(quantity(start))) {
+                    start = pos;
+                    if (unit(start) >= 0) {
+                        start = pos;
+                    }
+                }
+                while (start < length && !Character.isLetterOrDigit(text.charAt(start))) {
+                    start++;
+                }
+                int comma = ingredient.indexOf(',', start);
+                String name = ingredient.substring(start, comma >= 0 ? comma : length).trim();
+                return name.isEmpty() ? ingredient.trim() : name;
+            } finally {
+                text = null;
+            }
+        }
+
+        /**
+         * An amount, or the midpoint of a range of two ("2-3", "3½–4",
+         * "1 to 2"), leaving pos after it; NaN when there is none
+         */
+        private double quantity(int start) {
+            double low = amount(start);
+            if (Double.isNaN(low)) {
+                return low;
+            }
+            int end = pos;
+            int next = skipSpaces(end);
+            if (next < length && isDash(text.charAt(next))) {
+                next = skipSpaces(next + 1);
+            } else if (text.regionMatches(true, next, "to ", 0, 3)) {
+                next = skipSpaces(next + 3);
             } else {
-                quantity = Double.parseDouble(quantityStr);
-            }
-            
-            // Standardize units
-            Map<String, String> unitMapping = new HashMap<>();
-            unitMapping.put("lb", "pound");
-            unitMapping.put("oz", "ounce");
-            unitMapping.put("g", "gram");
-            unitMapping.put("tbsp", "tablespoon");
-            unitMapping.put("tsp", "teaspoon");
-            
-            String standardUnit = unitMapping.getOrDefault(unit, unit);
-            return quantity * MEASUREMENT_CONVERSIONS.getOrDefault(standardUnit, 1.0);
-        }
-        
-        // If no measurement found, estimate based on ingredient type
-        for (Map.Entry<String, Map<String, Double>> category : INGREDIENT_WEIGHTS.entrySet()) {
-            for (Map.Entry<String, Double> item : category.getValue().entrySet()) {
-                if (ingredientLower.contains(item.getKey())) {
-                    return item.getValue();
+                return low;
+            }
+            double high = startsAmount(next) ? amount(next) : Double.NaN;
+            if (Double.isNaN(high)) {
+                pos = end;
+                return low;
+            }
+            return (low + high) / 2;
+        }
+
+        /**
+         * A whole or decimal number, a fraction ("1/2", "1⁄2", "½"), or a
+         * mixed number ("1 1/2", "1½", "1 ½"), leaving pos after it
+         */
+        private double amount(int start) {
+            double vulgar = vulgarFraction(start);
+            if (!Double.isNaN(vulgar)) {
+                pos = start + 1;
+                return vulgar;
+            }
+            double whole = number(start);
+            if (Double.isNaN(whole)) {
+                return whole;
+            }
+            int end = pos;
+            boolean integer = !decimal;
+
+            if (integer && end < length && isFractionSlash(text.charAt(end))) {
+                double denominator = number(end + 1);
+                if (!Double.isNaN(denominator) && denominator > 0) {
+                    return whole / denominator;
                 }
+                pos = end;
+                return whole;
+            }
+            if (integer) {
+                int next = skipSpaces(end);
+                double fraction = vulgarFraction(next);
+                if (!Double.isNaN(fraction)) {
+                    pos = next + 1;
+                    return whole + fraction;
+                }
+                if (next > end) {
+                    double numerator = number(next);
+                    int slash = pos;
+                    if (!Double.isNaN(numerator) && slash < length && isFractionSlash(text.charAt(slash))) {
+                        double denominator = number(slash + 1);
+                        if (!Double.isNaN(denominator) && denominator > 0) {
+                            return whole + numerator / denominator;
+                        }
+                    }
+                }
+            }
+            pos = end;
+            return whole;
+        }
+
+        /**
+         * Digits with an optional decimal part, or a decimal part alone (".5"),
+         * leaving pos after them; NaN when there are no digits
+         */
+        private double number(int start) {
+            double value = 0.0;
+            int i = start;
+            boolean digits = false;
+            decimal = false;
+            while (i < length && isDigit(text.charAt(i))) {
+                value = value * 10 + (text.charAt(i++) - '0');
+                digits = true;
+            }
+            if (i + 1 < length && text.charAt(i) == '.' && isDigit(text.charAt(i + 1))) {
+                double scale = 0.1;
+                for (i++; i < length && isDigit(text.charAt(i)); i++) {
+                    value += (text.charAt(i) - '0') * scale;
+                    scale /= 10;
+                }
+                digits = true;
+                decimal = true;
+            }
+            pos = i;
+            return digits ? value : Double.NaN;
+        }
+
+        /**
+         * Index into the unit tables of the word at start, after any spaces
+         * or a hyphen ("4-lb."), leaving pos after it; -1 when it is not a unit
+         */
+        private int unit(int start) {
+            int i = skipSpaces(start);
+            if (i < length && text.charAt(i) == '-') {
+                i++;
+            }
+            int end = i;
+            while (end < length && Character.isLetter(text.charAt(end))) {
+                end++;
+            }
+            int wordLength = end - i;
+            for (int unit = 0; unit < UNIT_NAMES.length; unit++) {
+                if (UNIT_NAMES[unit].length() == wordLength
+                    && text.regionMatches(true, i, UNIT_NAMES[unit], 0, wordLength)) {
+                    pos = end;
+                    return unit;
+                }
+            }
+            return -1;
+        }
+
+        private double weighByType() {
+            bestType = -1;
+            TYPE_MATCHER.forEachMatch(lowerCase, offerType);
+            return bestType >= 0 ? TYPE_POUNDS[bestType] : DEFAULT_WEIGHT;
+        }
+
+        private void offerType(int type) {
+            if (bestType < 0 || TYPE_NAMES[type].length() > TYPE_NAMES[bestType].length()
+                || (TYPE_NAMES[type].length() == TYPE_NAMES[bestType].length() && type < bestType)) {
+                bestType = type;
+            }
+        }
+
+        private boolean startsAmount(int i) {
+            if (i >= length) {
+                return false;
+            }
+            char c = text.charAt(i);
+            return isDigit(c) || !Double.isNaN(vulgarFraction(i))
+                || (c == '.' && i + 1 < length && isDigit(text.charAt(i + 1)));
+        }
+
+        private double vulgarFraction(int i) {
+            if (i >= length) {
+                return Double.NaN;
+            }
+            switch (text.charAt(i)) {
+                case '½': return 1.0 / 2;
+                case '⅓': return 1.0 / 3;
+                case '⅔': return 2.0 / 3;
+                case '¼': return 1.0 / 4;
+                case '¾': return 3.0 / 4;
+                case '⅕': return 1.0 / 5;
+                case '⅖': return 2.0 / 5;
+                case '⅗': return 3.0 / 5;
+                case '⅘': return 4.0 / 5;
+                case '⅙': return 1.0 / 6;
+                case '⅚': return 5.0 / 6;
+                case '⅛': return 1.0 / 8;
+                case '⅜': return 3.0 / 8;
+                case '⅝': return 5.0 / 8;
+                case '⅞': return 7.0 / 8;
+                default: return Double.NaN;
+            }
+        }
+
+        private int skipSpaces(int i) {
+            while (i < length && Character.isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            return i;
+        }
+
+        private static boolean continuesAmount(char previous) {
+            return isDigit(previous) || previous == '.' || isFractionSlash(previous);
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static boolean isFractionSlash(char c) {
+            return c == '/' || c == '⁄';
+        }
+
+        private static boolean isDash(char c) {
+            return c == '-' || c == '–' || c == '—';
+        }
+
+        /**
+         * The current line, lowercased one character at a time as the type
+         * automaton reads it
+         */
+        private final class LowerCaseText implements CharSequence {
+            @Override
+            public int length() {
+                return length;
+            }
+
+            @Override
+            public char charAt(int index) {
+                return Character.toLowerCase(text.charAt(index));
+            }
+
+            @Override
+            public CharSequence subSequence(int start, int end) {
+                return text.substring(start, end).toLowerCase(Locale.ROOT);
+            }
+
+            @Override
+            public String toString() {
+                return text.toLowerCase(Locale.ROOT);
             }
         }
-        
-        // Default weight for unknown ingredients
-        return 0.25;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,139 @@
+package com.leftoverchef.backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from non-negative int keys to int values, with
+ * linear probing over primitive arrays: no boxing and no entry objects. The
+ * hash table only holds indexes into dense key and value arrays, so entries
+ * 0 to size() - 1 are exactly the keys present and iterating them never
+ * visits an empty slot, however many keys have come and gone. A count
+ * brought back to zero stays in the table with value zero until it is
+ * removed, so callers that use it as a counter skip zeros or remove them.
+ */
+public class IntIntHashMap {
+    // Entry index + 1 per hash slot, 0 for an empty slot
+    private int[] slots;
+    private int[] keys;
+    private int[] values;
+    private int size = 0;
+
+    public IntIntHashMap() {
+        this(8);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        slots = new int[capacity];
+        // The table grows before it is more than three quarters full
+        keys = new int[capacity / 4 * 3];
+        values = new int[keys.length];
+    }
+
+    /**
+     * Number of keys in the table, including any whose value is zero
+     */
+    public int size() {
+        return size;
+    }
+
+    public int get(int key) {
+        int entry = slots[find(key)];
+        return entry != 0 ? values[entry - 1] : 0;
+    }
+
+    /**
+     * Add delta to the value of a key, starting from zero when it is absent,
+     * and return the new value
+     */
+    public int add(int key, int delta) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Keys must be non-negative: " + key);
+        }
+        int slot = find(key);
+        if (slots[slot] == 0) {
+            if ((size + 1) * 4 > slots.length * 3) {
+                grow();
+                slot = find(key);
+            }
+            keys[size] = key;
+            values[size] = 0;
+            slots[slot] = ++size;
+        }
+        int entry = slots[slot] - 1;
+        values[entry] += delta;
+        return values[entry];
+    }
+
+    /**
+     * Remove a key and return its value, or 0 when it is absent. Later slots
+     * of the probe run are shifted back into the gap, so lookups never need
+     * tombstones, and the last entry moves into the removed one, so entries
+     * stay dense.
+     */
+    public int remove(int key) {
+        if (key < 0) {
+            return 0;
+        }
+        int slot = find(key);
+        if (slots[slot] == 0) {
+            return 0;
+        }
+        int entry = slots[slot] - 1;
+        int value = values[entry];
+        int mask = slots.length - 1;
+        int hole = slot;
+        for (int next = (slot + 1) & mask; slots[next] != 0; next = (next + 1) & mask) {
+            // A key may fill the hole only if its home slot is not between the hole and it
+            int home = mix(keys[slots[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+        }
+        slots[hole] = 0;
+
+        int last = --size;
+        if (entry != last) {
+            keys[entry] = keys[last];
+            values[entry] = values[last];
+            slots[find(keys[entry])] = entry + 1;
+        }
+        return value;
+    }
+
+    /**
+     * Key of entry i, for i from 0 to size() - 1; removing a key may move
+     * the last entry into its place
+     */
+    public int keyAt(int entry) {
+        return keys[entry];
+    }
+
+    public int valueAt(int entry) {
+        return values[entry];
+    }
+
+    private int find(int key) {
+        int mask = slots.length - 1;
+        int slot = mix(key) & mask;
+        while (slots[slot] != 0 && keys[slots[slot] - 1] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        slots = new int[slots.length * 2];
+        keys = Arrays.copyOf(keys, slots.length / 4 * 3);
+        values = Arrays.copyOf(values, keys.length);
+        for (int entry = 0; entry < size; entry++) {
+            slots[find(keys[entry])] = entry + 1;
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
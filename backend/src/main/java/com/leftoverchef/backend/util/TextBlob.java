@@ -0,0 +1,131 @@
+package com.leftoverchef.backend.util;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only table of strings kept as UTF-8 outside the Java heap, either in
+ * direct buffers or in a memory-mapped file. A string is decoded every time it
+ * is read, so large text that is rarely read costs no heap while it sits in
+ * the table. Reads never move buffer positions, so any number of threads can
+ * read at once. Offsets are ints, so a table holds at most 2 GB of text.
+ */
+public final class TextBlob {
+    private final IntBuffer offsets;
+    private final ByteBuffer[] chunks;
+    private final int chunkShift;
+
+    private TextBlob(IntBuffer offsets, ByteBuffer[] chunks, int chunkShift) {
+        this.offsets = offsets;
+        this.chunks = chunks;
+        this.chunkShift = chunkShift;
+    }
+
+    /**
+     * View existing buffers as a table: offsets holds size + 1 ascending byte
+     * offsets into bytes, string i spanning offsets i to i + 1.
+     */
+    public static TextBlob wrap(IntBuffer offsets, ByteBuffer bytes) {
+        if (offsets.limit() < 1) {
+            throw new IllegalArgumentException("offsets must hold at least one entry");
+        }
+        // One chunk larger than any int offset
+        return new TextBlob(offsets, new ByteBuffer[] {bytes}, 31);
+    }
+
+    public int size() {
+        return offsets.limit() - 1;
+    }
+
+    /**
+     * Decode string id, or null for a negative id
+     */
+    public String get(int id) {
+        if (id < 0) {
+            return null;
+        }
+        int start = offsets.get(id);
+        byte[] utf8 = new byte[offsets.get(id + 1) - start];
+        long chunkSize = 1L << chunkShift;
+        int copied = 0;
+        while (copied < utf8.length) {
+            int at = start + copied;
+            int within = (int) (at & (chunkSize - 1));
+            int length = (int) Math.min(utf8.length - copied, chunkSize - within);
+            chunks[at >>> chunkShift].get(within, utf8, copied, length);
+            copied += length;
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends strings into direct buffers of CHUNK_SHIFT bits each, allocated
+     * as they fill, so building never holds a heap copy of the text or
+     * copies what is already written. Strings may span chunks. Only the last
+     * chunk is trimmed when built, so direct memory never holds more than the
+     * finished table and one chunk.
+     */
+    public static final class Builder {
+        static final int CHUNK_SHIFT = 20;
+
+        private final int chunkShift;
+        private final long capacity;
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private long length = 0;
+        private int[] offsets = new int[1024];
+        private int count = 0;
+
+        public Builder() {
+            this(CHUNK_SHIFT, Integer.MAX_VALUE);
+        }
+
+        // For testing: smaller chunks and capacity
+        Builder(int chunkShift, long capacity) {
+            this.chunkShift = chunkShift;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Append a string and return its id. Throws once the table would pass
+         * the 2 GB its int offsets can address.
+         */
+        public int add(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            if (length + utf8.length > capacity) {
+                throw new IllegalStateException("Text table is full: string " + count + " of " + utf8.length
+                    + " bytes would take it past " + capacity + " bytes, the most its int offsets can address");
+            }
+            int written = 0;
+            while (written < utf8.length) {
+                int within = (int) (length & ((1L << chunkShift) - 1));
+                if (within == 0 && length >>> chunkShift == chunks.size()) {
+                    chunks.add(ByteBuffer.allocateDirect(1 << chunkShift));
+                }
+                int part = Math.min(utf8.length - written, (1 << chunkShift) - within);
+                chunks.get((int) (length >>> chunkShift)).put(within, utf8, written, part);
+                written += part;
+                length += part;
+            }
+            if (count + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[++count] = (int) length;
+            return count - 1;
+        }
+
+        public TextBlob build() {
+            ByteBuffer[] built = chunks.toArray(new ByteBuffer[0]);
+            int last = (int) (length & ((1L << chunkShift) - 1));
+            if (last > 0) {
+                ByteBuffer trimmed = ByteBuffer.allocateDirect(last);
+                trimmed.put(0, built[built.length - 1], 0, last);
+                built[built.length - 1] = trimmed;
+            }
+            return new TextBlob(IntBuffer.wrap(Arrays.copyOf(offsets, count + 1)), built, chunkShift);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.leftoverchef.backend.util;
+
+/**
+ * Keeps the k best (id, score) pairs seen so far in a bounded min-heap, so
+ * selecting the top k of n scores costs O(n log k) instead of a full sort.
+ * Higher scores rank first and ties go to the lower id, which matches a
+ * stable descending sort over ids offered in ascending order.
+ */
+public class TopKSelector {
+    private final int[] ids;
+    private final double[] scores;
+    private int size = 0;
+    private boolean sorted = false;
+
+    public TopKSelector(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1: " + k);
+        }
+        this.ids = new int[k];
+        this.scores = new double[k];
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == ids.length;
+    }
+
+    /**
+     * Score of the lowest ranked pair kept so far; only meaningful when size() > 0
+     */
+    public double worstScore() {
+        if (sorted) {
+            return scores[size - 1];
+        }
+        return scores[0];
+    }
+
+    /**
+     * Consider a pair, keeping it only if it ranks among the best k so far
+     */
+    public void offer(int id, double score) {
+        if (sorted) {
+            throw new IllegalStateException("Selector has already been sorted");
+        }
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (ranksAbove(id, score, ids[0], scores[0])) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Offer every pair another selector kept, e.g. to merge per-chunk results
+     */
+    public void offerAll(TopKSelector other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.scores[i]);
+        }
+    }
+
+    /**
+     * Order the kept pairs best first; after this, id(0) is the best match.
+     */
+    public void sort() {
+        if (sorted) {
+            return;
+        }
+        // Heap sort with the worst element at the root leaves the array best first
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        sorted = true;
+    }
+
+    public int id(int rank) {
+        checkSorted(rank);
+        return ids[rank];
+    }
+
+    public double score(int rank) {
+        checkSorted(rank);
+        return scores[rank];
+    }
+
+    private void checkSorted(int rank) {
+        if (!sorted) {
+            throw new IllegalStateException("Call sort() before reading results");
+        }
+        if (rank < 0 || rank >= size) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " out of " + size);
+        }
+    }
+
+    private static boolean ranksAbove(int id, double score, int otherId, double otherScore) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranksAbove(ids[parent], scores[parent], ids[i], scores[i])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int end) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= end) {
+                return;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < end && ranksAbove(ids[left], scores[left], ids[right], scores[right])) {
+                worst = right;
+            }
+            if (!ranksAbove(ids[i], scores[i], ids[worst], scores[worst])) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -29,7 +29,7 @@ document.addEventListener('DOMContentLoaded', function() {
             headers: {
                 'Content-Type': 'application/json',
             },
-            body: JSON.stringify({ ingredients: ingredients })
+            body: JSON.stringify({ ingredients: ingredients, rotate: true })
         })
         .then(response => {
             console.log('API Response status:', response.status);
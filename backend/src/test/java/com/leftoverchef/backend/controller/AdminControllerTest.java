@@ -0,0 +1,65 @@
+package com.leftoverchef.backend.controller;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.leftoverchef.backend.service.RecipeService;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@ExtendWith(MockitoExtension.class)
+class AdminControllerTest {
+
+    @Mock
+    private RecipeService recipeService;
+
+    @InjectMocks
+    private AdminController adminController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(adminController).build();
+    }
+
+    @Test
+    void testRequestsNeedTheConfiguredToken() throws Exception {
+        ReflectionTestUtils.setField(adminController, "adminToken", "s3cret");
+        when(recipeService.reloadCatalog()).thenReturn(Collections.singletonMap("reloaded", true));
+
+        mockMvc.perform(post("/api/admin/recipes/reload"))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/recipes/reload").header(AdminController.TOKEN_HEADER, "guess"))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/recipes/duplicates").header(AdminController.TOKEN_HEADER, "guess"))
+            .andExpect(status().isForbidden());
+        verify(recipeService, never()).getDuplicateReport(anyInt());
+
+        mockMvc.perform(post("/api/admin/recipes/reload").header(AdminController.TOKEN_HEADER, "s3cret"))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/admin/recipes/duplicates").header(AdminController.TOKEN_HEADER, "s3cret")
+                .param("limit", "10001"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testBlankTokenRefusesEveryRequest() throws Exception {
+        mockMvc.perform(post("/api/admin/recipes/reload").header(AdminController.TOKEN_HEADER, ""))
+            .andExpect(status().isForbidden());
+        verify(recipeService, never()).reloadCatalog();
+    }
+}
@@ -0,0 +1,145 @@
+package com.leftoverchef.backend.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.leftoverchef.backend.service.RecipeService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@ExtendWith(MockitoExtension.class)
+class RecipeControllerTest {
+
+    @Mock
+    private RecipeService recipeService;
+
+    @InjectMocks
+    private RecipeController recipeController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(recipeController).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUnitlessQuantityIsWeighedLikeARecipeLine() throws Exception {
+        mockMvc.perform(post("/api/recipes/top").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ingredients\": [\"eggs\", \"onion\"], \"quantities\": {\"eggs\": \"3\", \"onion\": \"2\"}}"))
+            .andExpect(status().isOk());
+
+        ArgumentCaptor<Map<String, Double>> quantities = ArgumentCaptor.forClass(Map.class);
+        verify(recipeService).getTopRecipes(anyList(), anyInt(), any(), quantities.capture());
+        assertEquals(0.25, quantities.getValue().get("eggs"), 0.001);
+        assertEquals(0.5, quantities.getValue().get("onion"), 0.001);
+    }
+
+    @Test
+    void testSessionIsOnlyCreatedWhenRotationIsAsked() throws Exception {
+        MvcResult stateless = mockMvc.perform(post("/api/recipes").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ingredients\": [\"eggs\"]}"))
+            .andReturn();
+        assertNull(stateless.getRequest().getSession(false));
+        verify(recipeService).matchRecipe(anyList(), isNull(), any(), any());
+
+        MvcResult rotating = mockMvc.perform(post("/api/recipes/alternative").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ingredients\": [\"eggs\"], \"rotate\": true}"))
+            .andReturn();
+        assertNotNull(rotating.getRequest().getSession(false));
+        verify(recipeService).getAlternativeRecipe(anyList(), eq(rotating.getRequest().getSession(false).getId()), any());
+    }
+
+    @Test
+    void testNegativeOrNonFiniteQuantityIsRejected() throws Exception {
+        for (String quantity : new String[] {"-1", "\"-2 lb\"", "1e400", "true"}) {
+            mockMvc.perform(post("/api/recipes/top").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"ingredients\": [\"eggs\"], \"quantities\": {\"eggs\": " + quantity + "}}"))
+                .andExpect(status().isBadRequest());
+        }
+        verify(recipeService, never()).getTopRecipes(anyList(), anyInt(), any(), any());
+    }
+
+    @Test
+    void testPantrySizeIsLimited() throws Exception {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            items.add("\"item " + i + "\"");
+        }
+        mockMvc.perform(put("/api/pantry").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ingredients\": [" + String.join(", ", items) + "]}"))
+            .andExpect(status().isBadRequest());
+        verify(recipeService, never()).setPantry(anyString(), anyList());
+
+        // The service returns null when the stored pantry is already full
+        when(recipeService.addPantryItem(anyString(), eq("salt"), eq(100))).thenReturn(null);
+        when(recipeService.addPantryItem(anyString(), eq("rice"), eq(100))).thenReturn(Collections.singletonList("rice"));
+        mockMvc.perform(post("/api/pantry/items").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ingredient\": \"salt\"}"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/pantry/items").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ingredient\": \"rice\"}"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void testMatchingPantriesAreLimited() throws Exception {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            items.add("\"item " + i + "\"");
+        }
+        String pantry = "[" + String.join(", ", items) + "]";
+        for (String path : new String[] {"/api/recipes", "/api/recipes/top", "/api/recipes/missing",
+                                         "/api/recipes/alternative", "/api/ingredients/pairings"}) {
+            mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"ingredients\": " + pantry + "}"))
+                .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(post("/api/recipes/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"pantries\": [[\"eggs\"], " + pantry + "]}"))
+            .andExpect(status().isBadRequest());
+        verify(recipeService, never()).getTopRecipes(anyList(), anyInt(), any(), any());
+        verify(recipeService, never()).getTopRecipesBatch(anyList(), anyInt(), any());
+    }
+
+    @Test
+    void testBatchPantryItemsMustBeStrings() throws Exception {
+        for (String pantries : new String[] {"[[\"eggs\", 3]]", "[[\"eggs\"], [null]]", "[[\"rice\"], [[\"eggs\"]]]"}) {
+            mockMvc.perform(post("/api/recipes/batch").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"pantries\": " + pantries + "}"))
+                .andExpect(status().isBadRequest());
+        }
+        verify(recipeService, never()).getTopRecipesBatch(anyList(), anyInt(), any());
+
+        mockMvc.perform(post("/api/recipes/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"pantries\": [[\"eggs\", \"rice\"], null, []]}"))
+            .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,118 @@
+package com.leftoverchef.backend.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.leftoverchef.backend.model.Recipe;
+
+class BinaryRecipeCatalogTest {
+
+    @Test
+    void testCompiledCatalogLoadsLikeJson(@TempDir Path tempDir) throws IOException {
+        Path json = tempDir.resolve("recipes.json");
+        Files.writeString(json, "[{\"Recipe Index\": \"1\", \"Title\": \"Crème Brûlée\", \"Instructions\": \"Bake.\", "
+            + "\"Ingredients\": \"['2 cups cream', '4 egg yolks']\", \"Estimated_Pounds\": \"1.2\", "
+            + "\"Cleaned_Ingredients\": [\"cream\", \"egg yolks\"], \"Ingredient_Weights\": {\"cream\": 0.75}}, "
+            + "{\"Recipe Index\": \"2\", \"Title\": \"Scrambled Eggs\", \"Cleaned_Ingredients\": [\"eggs\", \"cream\"]}]");
+        Path bin = tempDir.resolve("recipes.bin");
+
+        assertEquals(2, RecipeCatalogCompiler.compile(json, bin));
+        assertTrue(BinaryRecipeCatalog.isBinary(bin));
+        assertFalse(BinaryRecipeCatalog.isBinary(json));
+
+        List<Recipe> expected = new RecipeCatalogLoader(json.toString()).load();
+        List<Recipe> loaded = new RecipeCatalogLoader(bin.toString()).load();
+        assertEquals(expected.size(), loaded.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Recipe want = expected.get(i);
+            Recipe got = loaded.get(i);
+            assertEquals(want.getRecipeIndex(), got.getRecipeIndex());
+            assertEquals(want.getTitle(), got.getTitle());
+            assertEquals(want.getInstructions(), got.getInstructions());
+            assertEquals(want.getIngredients(), got.getIngredients());
+            assertEquals(want.getEstimatedPounds(), got.getEstimatedPounds());
+            assertEquals(want.getImageName(), got.getImageName());
+            assertEquals(want.getCleanedIngredients(), got.getCleanedIngredients());
+            assertEquals(want.getIngredientWeights(), got.getIngredientWeights());
+        }
+        // Shared strings are decoded once
+        assertSame(loaded.get(0).getCleanedIngredients().get(0), loaded.get(1).getCleanedIngredients().get(1));
+    }
+
+    @Test
+    void testCompiledCatalogKeepsTheBuiltIndexes(@TempDir Path tempDir) throws IOException {
+        Path json = tempDir.resolve("recipes.json");
+        Files.writeString(json, "[{\"Title\": \"Rice Bowl\", \"Estimated_Time_Minutes\": \"20\", "
+            + "\"Cleaned_Ingredients\": [\"rice\", \"green onion\", \"Rice\"], \"Ingredient_Weights\": {\"soy sauce\": 0.1}}, "
+            + "{\"Title\": \"Rice  bowl!\", \"Cleaned_Ingredients\": [\"rice\", \"green onion\"]}, "
+            + "{\"Title\": \"Omelette\", \"Estimated_Pounds\": \"0.5\", \"Cleaned_Ingredients\": [\"eggs\", \"onion\"]}]");
+        Path bin = tempDir.resolve("recipes.bin");
+
+        // The exact duplicate is dropped when compiling, as it is when the service loads JSON
+        assertEquals(2, RecipeCatalogCompiler.compile(json, bin));
+        RecipeCatalog built = RecipeCatalog.build(
+            new RecipeDeduplicator(0.8).deduplicate(new RecipeCatalogLoader(json.toString()).load()).getKept());
+        RecipeCatalog compiled = new RecipeCatalogLoader(bin.toString()).loadCompiled();
+
+        assertEquals(built.size(), compiled.size());
+        assertEquals(built.getDictionary().size(), compiled.getDictionary().size());
+        for (int termId = 0; termId < built.getDictionary().size(); termId++) {
+            assertEquals(built.getDictionary().term(termId), compiled.getDictionary().term(termId));
+            assertEquals(termId, compiled.getDictionary().idOf(built.getDictionary().term(termId)));
+        }
+        assertArrayEquals(built.getIngredientCounts(), compiled.getIngredientCounts());
+        assertArrayEquals(built.getTermOffsets(), compiled.getTermOffsets());
+        assertArrayEquals(built.getFlatTermIds(), compiled.getFlatTermIds());
+        assertArrayEquals(built.getFlatTermPounds(), compiled.getFlatTermPounds());
+        assertArrayEquals(built.getWeightOffsets(), compiled.getWeightOffsets());
+        assertArrayEquals(built.getFlatWeightIds(), compiled.getFlatWeightIds());
+        assertArrayEquals(built.getFlatWeightValues(), compiled.getFlatWeightValues());
+        assertArrayEquals(built.getIndex().getOffsets(), compiled.getIndex().getOffsets());
+        assertArrayEquals(built.getIndex().getPositions(), compiled.getIndex().getPositions());
+        assertArrayEquals(built.getIngredientIndex().getPositions(), compiled.getIngredientIndex().getPositions());
+        assertNotSame(compiled.getIndex(), compiled.getIngredientIndex());
+        assertArrayEquals(built.getMinutesIndex().getPositions(), compiled.getMinutesIndex().getPositions());
+        assertArrayEquals(built.getPoundsIndex().getValues(), compiled.getPoundsIndex().getValues());
+        for (int position = 0; position < built.size(); position++) {
+            assertEquals(built.getMinutes(position), compiled.getMinutes(position));
+            assertEquals(built.getPounds(position), compiled.getPounds(position));
+            assertArrayEquals(built.get(position).getIngredientIds(), compiled.get(position).getIngredientIds());
+        }
+
+        int[][] pantry = compiled.encodePantry(Arrays.asList("rice", "onion"));
+        PantryScorer want = new MergePantryScorer(built, built.encodePantry(Arrays.asList("rice", "onion")));
+        PantryScorer got = new MergePantryScorer(compiled, pantry);
+        for (int position = 0; position < built.size(); position++) {
+            assertEquals(want.score(position), got.score(position), 0.0);
+        }
+    }
+
+    @Test
+    void testRejectsTruncatedCatalogs(@TempDir Path tempDir) throws IOException {
+        Path json = tempDir.resolve("recipes.json");
+        Files.writeString(json, "[{\"Title\": \"Omelette\", \"Cleaned_Ingredients\": [\"eggs\", \"onion\"]}]");
+        Path bin = tempDir.resolve("recipes.bin");
+        RecipeCatalogCompiler.compile(json, bin);
+
+        byte[] bytes = Files.readAllBytes(bin);
+        Files.write(bin, Arrays.copyOf(bytes, bytes.length / 2));
+        IOException e = assertThrows(IOException.class, () -> BinaryRecipeCatalog.read(bin));
+        assertTrue(e.getMessage().startsWith("Truncated"), e.getMessage());
+    }
+
+    @Test
+    void testRejectsOtherFormatVersions(@TempDir Path tempDir) throws IOException {
+        Path bin = tempDir.resolve("recipes.bin");
+        Files.write(bin, new byte[] {0x4C, 0x43, 0x52, 0x43, 0, 0, 0, 99, 0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0});
+
+        assertThrows(IOException.class, () -> BinaryRecipeCatalog.read(bin));
+    }
+}
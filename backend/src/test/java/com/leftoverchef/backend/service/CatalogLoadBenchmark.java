@@ -0,0 +1,116 @@
+package com.leftoverchef.backend.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.leftoverchef.backend.model.Recipe;
+
+/**
+ * Startup cost of the JSON catalog against the compiled binary one, for a
+ * synthetic catalog with instructions and raw ingredient text of typical
+ * length. "load" is RecipeCatalogLoader.load alone, which for the binary
+ * format also decodes every recipe; "startup" is what a reload does: parse,
+ * deduplicate and build the indexes for JSON, only map the columns for the
+ * binary format. Run with:
+ *
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.leftoverchef.backend.service.CatalogLoadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogLoadBenchmark {
+    private static final String[] WORDS = {
+        "stir", "the", "onion", "until", "golden", "add", "garlic", "and", "simmer", "for", "minutes",
+        "season", "with", "salt", "pepper", "then", "bake", "in", "oven", "serve", "warm", "chicken"
+    };
+
+    @Param({"10000", "50000"})
+    public int catalogSize;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    @Param({"load", "startup"})
+    public String stage;
+
+    private Path directory;
+    private RecipeCatalogLoader loader;
+
+    @Setup
+    public void setUp() throws IOException {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(RecipeCatalogLoader.class)).setLevel(Level.WARN);
+        directory = Files.createTempDirectory("catalog-load");
+        Path json = directory.resolve("recipes.json");
+        Random random = new Random(42);
+        List<Map<String, Object>> recipes = new ArrayList<>(catalogSize);
+        for (Recipe recipe : RecipeScoringBenchmark.syntheticCatalog(catalogSize)) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("Recipe Index", recipe.getRecipeIndex());
+            entry.put("Title", recipe.getTitle());
+            entry.put("Instructions", sentence(random, 120));
+            entry.put("Ingredients", recipe.getCleanedIngredients().toString());
+            entry.put("Estimated_Time_Minutes", String.valueOf(10 + random.nextInt(120)));
+            entry.put("Estimated_Pounds", String.valueOf(0.25 + random.nextInt(40) / 4.0));
+            entry.put("Cleaned_Ingredients", recipe.getCleanedIngredients());
+            recipes.add(entry);
+        }
+        new ObjectMapper().writeValue(json.toFile(), recipes);
+
+        Path bin = directory.resolve("recipes.bin");
+        RecipeCatalogCompiler.compile(json, bin);
+        loader = new RecipeCatalogLoader((format.equals("binary") ? bin : json).toString());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().delete());
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public Object loadCatalog() throws IOException {
+        if (format.equals("binary") && stage.equals("startup")) {
+            return loader.loadCompiled();
+        }
+        List<Recipe> recipes = loader.load();
+        if (stage.equals("load")) {
+            return recipes;
+        }
+        return RecipeCatalog.build(new RecipeDeduplicator(0.8).deduplicate(recipes).getKept());
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(i > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.append('.').toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CatalogLoadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.leftoverchef.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.leftoverchef.backend.model.IngredientSuggestion;
+import com.leftoverchef.backend.model.Recipe;
+
+class CooccurrenceMatrixTest {
+
+    @Test
+    void testReloadsApplyOnlyTheDifferenceAndDropUnusedTerms() {
+        CooccurrenceMatrix matrix = new CooccurrenceMatrix();
+        assertEquals(3, matrix.update(catalog(
+            Arrays.asList("tomato", "basil"), Arrays.asList("basil", "tomato"), Arrays.asList("bread", "garlic"))));
+        assertEquals(4, matrix.termCount());
+        List<IngredientSuggestion> pairings = matrix.suggest(Collections.singletonList("tomato"), 5);
+        assertEquals(1, pairings.size());
+        assertEquals("basil", pairings.get(0).getIngredient());
+        assertEquals(2, pairings.get(0).getCount());
+
+        // One tomato and basil recipe taken back, bread and garlic replaced by garlic and butter
+        assertEquals(3, matrix.update(catalog(
+            Arrays.asList("tomato", "basil"), Arrays.asList("garlic", "butter"))));
+        assertEquals(4, matrix.termCount());
+        pairings = matrix.suggest(Collections.singletonList("garlic"), 5);
+        assertEquals(1, pairings.size());
+        assertEquals("butter", pairings.get(0).getIngredient());
+        assertEquals(1, pairings.get(0).getCount());
+        assertTrue(matrix.suggest(Collections.singletonList("bread"), 5).isEmpty());
+        assertEquals(1, matrix.suggest(Collections.singletonList("tomato"), 5).get(0).getCount());
+
+        assertEquals(0, matrix.update(catalog(
+            Arrays.asList("garlic", "butter"), Arrays.asList("tomato", "basil"))));
+        assertEquals(2, matrix.update(catalog()));
+        assertEquals(0, matrix.termCount());
+    }
+
+    @Test
+    void testPantryItemsStandForFewTermsAndSuggestNames() {
+        CooccurrenceMatrix matrix = new CooccurrenceMatrix();
+        matrix.update(catalog(
+            Arrays.asList("1 tsp salt", "2 eggs"), Arrays.asList("salt", "pepper"),
+            Arrays.asList("sea salt", "caramel"), Arrays.asList("kosher salt", "brisket"),
+            Arrays.asList("unsalted butter", "1 cup flour, sifted"), Arrays.asList("salted butter", "bread"),
+            Arrays.asList("seasoned salt", "fries")));
+
+        // "salt" names a term of its own, so only that term's pairings count
+        List<IngredientSuggestion> pairings = matrix.suggest(Collections.singletonList("salt"), 10);
+        assertEquals(Arrays.asList("eggs", "pepper"), ingredients(pairings));
+        assertEquals(1, pairings.get(0).getCount());
+
+        // "sal" is in six terms; the most used five stand for it, and none of the six is suggested
+        pairings = matrix.suggest(Collections.singletonList("sal"), 10);
+        assertEquals(Arrays.asList("eggs", "pepper", "caramel", "brisket", "flour", "bread"), ingredients(pairings));
+    }
+
+    private static List<String> ingredients(List<IngredientSuggestion> suggestions) {
+        List<String> ingredients = new ArrayList<>();
+        for (IngredientSuggestion suggestion : suggestions) {
+            ingredients.add(suggestion.getIngredient());
+        }
+        return ingredients;
+    }
+
+    @SafeVarargs
+    private static RecipeCatalog catalog(List<String>... ingredientLists) {
+        List<Recipe> recipes = new ArrayList<>();
+        for (List<String> ingredients : ingredientLists) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle(String.join(" and ", ingredients));
+            recipe.setCleanedIngredients(ingredients);
+            recipes.add(recipe);
+        }
+        return RecipeCatalog.build(recipes);
+    }
+}
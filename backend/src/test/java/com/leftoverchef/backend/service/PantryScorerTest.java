@@ -0,0 +1,99 @@
+package com.leftoverchef.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import com.leftoverchef.backend.model.Recipe;
+import com.leftoverchef.backend.model.ScoredRecipe;
+import com.leftoverchef.backend.util.IngredientWeightCalculator;
+
+class PantryScorerTest {
+    private static final String[] TERMS = {
+        "chicken breast", "chicken stock", "rice", "brown rice", "onion", "green onion", "garlic", "salt",
+        "olive oil", "butter", "milk", "eggs", "flour", "sugar", "lemon", "tomato", "basil", "pepper"
+    };
+
+    @Test
+    void testBitsetScoresEqualMergeScores() {
+        Random random = new Random(7);
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle("Recipe " + i);
+            List<String> ingredients = new ArrayList<>();
+            Map<String, Double> weights = new LinkedHashMap<>();
+            int count = random.nextInt(8);
+            for (int j = 0; j < count; j++) {
+                String term = TERMS[random.nextInt(TERMS.length)];
+                ingredients.add(term);
+                if (random.nextInt(3) == 0) {
+                    weights.put(term, random.nextDouble() * 3);
+                }
+            }
+            recipe.setCleanedIngredients(ingredients);
+            recipe.setIngredientWeights(weights.isEmpty() ? null : weights);
+            recipes.add(recipe);
+        }
+        RecipeCatalog catalog = RecipeCatalog.build(recipes);
+
+        // Small pantries, pantries with repeated items, and pantries over one mask word
+        for (int pantrySize : new int[] {1, 3, 12, 64, 65, 150}) {
+            List<String> pantry = new ArrayList<>();
+            for (int i = 0; i < pantrySize; i++) {
+                String term = TERMS[random.nextInt(TERMS.length)];
+                pantry.add(random.nextBoolean() ? term : term.substring(0, 1 + random.nextInt(term.length() - 1)));
+            }
+            int[][] pantryTermIds = catalog.encodePantry(pantry);
+            PantryScorer merge = new MergePantryScorer(catalog, pantryTermIds);
+            PantryScorer bitset = new BitsetPantryScorer(catalog, pantryTermIds);
+            for (int position = 0; position < catalog.size(); position++) {
+                assertEquals(merge.score(position), bitset.score(position), 0.0,
+                    "pantry of " + pantrySize + " at recipe " + position);
+            }
+            // The next pantry reuses these masks, so they must come back cleared
+            bitset.release();
+        }
+    }
+
+    @Test
+    void testPantryCountWeighsAsMuchAsTheSameRecipeCount() {
+        Recipe recipe = new Recipe();
+        recipe.setTitle("Tomato Salad");
+        recipe.setCleanedIngredients(Arrays.asList("2 large tomatoes", "1 tablespoon olive oil"));
+        RecipeCatalog catalog = RecipeCatalog.build(Arrays.asList(recipe));
+        int[][] pantryTermIds = catalog.encodePantry(Arrays.asList("tomatoes"));
+        PantryScorer merge = new MergePantryScorer(catalog, pantryTermIds);
+        double[] entryPounds = {IngredientWeightCalculator.calculateQuantityWeight("2 large", "tomatoes")};
+
+        // The pantry's two tomatoes are exactly what the recipe uses, so all of them are used up
+        PantryScorer quantity = new QuantityPantryScorer(catalog, merge, pantryTermIds, entryPounds);
+        assertEquals((merge.score(0) + 1.0) / 2, quantity.score(0), 1e-6);
+    }
+
+    @Test
+    void testEnginesRankIdentically() {
+        List<Recipe> catalog = RecipeScoringBenchmark.syntheticCatalog(2000);
+        List<String> pantry = Arrays.asList("salt", "chicken 1", "garlic", "onion 2", "salt");
+        RecipeService recipeService = new RecipeService();
+        recipeService.setRecipes(catalog);
+
+        recipeService.setScoringEngine("merge");
+        List<ScoredRecipe> merge = recipeService.getTopRecipes(pantry, 60);
+        recipeService.setScoringEngine("bitset");
+        List<ScoredRecipe> bitset = recipeService.getTopRecipes(pantry, 60);
+
+        assertEquals(merge.size(), bitset.size());
+        for (int rank = 0; rank < merge.size(); rank++) {
+            assertSame(merge.get(rank).getRecipe(), bitset.get(rank).getRecipe());
+            assertEquals(merge.get(rank).getScore(), bitset.get(rank).getScore(), 0.0);
+        }
+        assertThrows(IllegalArgumentException.class, () -> recipeService.setScoringEngine("simd"));
+    }
+}
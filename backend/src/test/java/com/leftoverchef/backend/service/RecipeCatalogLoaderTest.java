@@ -0,0 +1,74 @@
+package com.leftoverchef.backend.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.leftoverchef.backend.model.Recipe;
+
+class RecipeCatalogLoaderTest {
+    private static final String RECIPES = "[{\"Recipe Index\": \"1\", \"Title\": \"Fried Rice\", "
+        + "\"Instructions\": \"Fry the rice.\", \"Ingredients\": \"['2 cups rice', '2 eggs']\", "
+        + "\"Cleaned_Ingredients\": [\"rice\", \"eggs\"], \"Ingredient_Weights\": {\"rice\": 0.5}}, "
+        + "{\"Recipe Index\": \"2\", \"Title\": \"Omelette\", \"Cleaned_Ingredients\": [\"eggs\"]}]";
+
+    @Test
+    void testReadsBareArrayAndWrapper(@TempDir Path tempDir) throws IOException {
+        Path bare = tempDir.resolve("bare.json");
+        Files.writeString(bare, RECIPES);
+        Path wrapped = tempDir.resolve("wrapped.json");
+        Files.writeString(wrapped, "{\"source\": {\"name\": \"test\"}, \"recipes\": " + RECIPES + "}");
+
+        for (Path file : List.of(bare, wrapped)) {
+            List<Recipe> recipes = new RecipeCatalogLoader(file.toString()).load();
+            assertEquals(2, recipes.size());
+            assertEquals("Fried Rice", recipes.get(0).getTitle());
+            assertEquals(0.5, recipes.get(0).getIngredientWeights().get("rice"));
+            assertEquals(List.of("eggs"), recipes.get(1).getCleanedIngredients());
+            assertEquals("Fry the rice.", recipes.get(0).getInstructions());
+            assertEquals("['2 cups rice', '2 eggs']", recipes.get(0).getIngredients());
+            assertNull(recipes.get(1).getInstructions());
+        }
+    }
+
+    @Test
+    void testReadsGzipCompressedFile(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("recipes.json.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(RECIPES.getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Recipe> recipes = new RecipeCatalogLoader(file.toString()).load();
+        assertEquals(2, recipes.size());
+        assertEquals("Omelette", recipes.get(1).getTitle());
+    }
+
+    @Test
+    void testSkipsInvalidAndMalformedRecipes(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("recipes.json");
+        Files.writeString(file, "[{\"Title\": \"No Ingredients\"}, "
+            + "{\"Title\": \"Bad\", \"Cleaned_Ingredients\": {\"nested\": [1, 2]}, \"Instructions\": \"x\"}, "
+            + "\"not a recipe\", "
+            + "{\"Title\": \"Toast\", \"Cleaned_Ingredients\": [\"bread\"]}]");
+
+        List<Recipe> recipes = new RecipeCatalogLoader(file.toString()).load();
+        assertEquals(1, recipes.size());
+        assertEquals("Toast", recipes.get(0).getTitle());
+    }
+
+    @Test
+    void testRejectsUnexpectedDocument(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("recipes.json");
+        Files.writeString(file, "{\"items\": []}");
+
+        assertThrows(IOException.class, () -> new RecipeCatalogLoader(file.toString()).load());
+    }
+}
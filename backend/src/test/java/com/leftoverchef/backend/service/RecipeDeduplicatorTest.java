@@ -0,0 +1,105 @@
+package com.leftoverchef.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import com.leftoverchef.backend.model.Recipe;
+
+class RecipeDeduplicatorTest {
+
+    @Test
+    void testNearDuplicatesCollapseIntoMostSimilarKeptRecipe() {
+        List<Recipe> recipes = Arrays.asList(
+            recipe("1", "Beef Stew", "beef", "carrots", "onion", "potatoes", "thyme", "stock", "flour", "bay leaf"),
+            recipe("2", "Lamb Stew", "lamb", "carrots", "onion", "potatoes", "thyme", "stock", "flour", "bay leaf"),
+            recipe("3", "Beef Stew", "beef", "carrots", "onion", "potatoes", "thyme", "stock", "flour", "salt"),
+            recipe("4", "Lamb Stew", "lamb", "carrots", "onion", "potatoes", "thyme", "stock", "flour", "bay leaf",
+                "salt"),
+            recipe("5", "Beef Stew", "beef", "carrots"));
+
+        RecipeDeduplicator.Report report = new RecipeDeduplicator(0.75).deduplicate(recipes);
+
+        assertEquals(Arrays.asList("1", "2", "5"), indexes(report.getKept()));
+        assertEquals(2, report.getDuplicates().size());
+        assertEquals("1", report.getDuplicates().get(0).toMap().get("keptRecipeIndex"));
+        // Lamb Stew with salt is 10/11 like the kept Lamb Stew and 8/12 like the Beef Stew
+        assertEquals("2", report.getDuplicates().get(1).toMap().get("keptRecipeIndex"));
+        assertEquals(10.0 / 11, (double) report.getDuplicates().get(1).toMap().get("similarity"), 1e-9);
+    }
+
+    @Test
+    void testZeroThresholdKeepsOnlyTheExactCheck() {
+        List<Recipe> recipes = Arrays.asList(
+            recipe("1", "Pancakes", "flour", "milk", "eggs"),
+            recipe("2", "PANCAKES ", "eggs", "milk", "flour", "eggs"),
+            recipe("3", "Pancakes", "flour", "milk", "eggs", "butter"));
+
+        RecipeDeduplicator.Report report = new RecipeDeduplicator(0).deduplicate(recipes);
+
+        assertEquals(Arrays.asList("1", "3"), indexes(report.getKept()));
+        assertEquals(1, report.exactCount());
+        assertThrows(IllegalArgumentException.class, () -> new RecipeDeduplicator(1.5));
+    }
+
+    @Test
+    void testFindsEveryPairAboveThresholdLikeBruteForce() {
+        Random random = new Random(3);
+        List<Recipe> recipes = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            List<String> ingredients = new ArrayList<>();
+            int base = random.nextInt(40);
+            for (int j = 0; j < 10; j++) {
+                ingredients.add("ingredient " + (base * 10 + j));
+            }
+            if (random.nextBoolean()) {
+                ingredients.set(random.nextInt(10), "ingredient " + random.nextInt(1000));
+            }
+            recipes.add(recipe(String.valueOf(i), "Dish " + base, ingredients.toArray(new String[0])));
+        }
+
+        double threshold = 0.8;
+        RecipeDeduplicator.Report report = new RecipeDeduplicator(threshold).deduplicate(recipes);
+        List<Recipe> kept = report.getKept();
+        assertEquals(recipes.size(), kept.size() + report.getDuplicates().size());
+        for (RecipeDeduplicator.Duplicate duplicate : report.getDuplicates()) {
+            assertTrue((double) duplicate.toMap().get("similarity") >= threshold);
+        }
+
+        // No two kept recipes are near duplicates of each other
+        List<long[]> features = new ArrayList<>();
+        for (Recipe recipe : kept) {
+            List<String> normalized = new ArrayList<>();
+            for (String ingredient : recipe.getCleanedIngredients()) {
+                normalized.add(RecipeDeduplicator.normalize(ingredient));
+            }
+            features.add(RecipeDeduplicator.features(RecipeDeduplicator.normalize(recipe.getTitle()), normalized));
+        }
+        for (int a = 0; a < features.size(); a++) {
+            for (int b = a + 1; b < features.size(); b++) {
+                assertTrue(RecipeDeduplicator.jaccard(features.get(a), features.get(b)) < threshold);
+            }
+        }
+        assertTrue(kept.size() < 200);
+    }
+
+    private static Recipe recipe(String index, String title, String... ingredients) {
+        Recipe recipe = new Recipe();
+        recipe.setRecipeIndex(index);
+        recipe.setTitle(title);
+        recipe.setCleanedIngredients(Arrays.asList(ingredients));
+        return recipe;
+    }
+
+    private static List<String> indexes(List<Recipe> recipes) {
+        List<String> indexes = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            indexes.add(recipe.getRecipeIndex());
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,104 @@
+package com.leftoverchef.backend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.qos.logback.classic.Level;
+
+import com.leftoverchef.backend.model.Recipe;
+import com.leftoverchef.backend.model.ScoredRecipe;
+
+/**
+ * Sequential vs fork/join ranking over synthetic catalogs where the pantry
+ * shares an ingredient with most recipes, so nearly the whole catalog is
+ * scored. Run with:
+ *
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.leftoverchef.backend.service.RecipeScoringBenchmark
+ *
+ * The crossover is the smallest catalog size where the parallel score drops
+ * below the sequential one. It moves with the core count, so measure on the
+ * deployment hardware and set recipe.scoring.parallel.threshold to match.
+ * On a single core (where the service leaves parallel scoring off) it gave,
+ * in microseconds per ranking:
+ *
+ *   candidates   1,000  5,000  10,000  25,000  50,000  100,000  200,000
+ *   sequential     161    317     664   1,339   2,565    5,083    9,803
+ *   parallel       171    310     786   1,344   2,860    5,672   10,865
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeScoringBenchmark {
+    private static final String[] INGREDIENTS = {
+        "chicken", "rice", "onion", "flour", "milk", "eggs", "garlic", "tomato", "butter", "salt",
+        "pepper", "carrot", "potato", "beef", "lemon", "thyme", "basil", "cheese", "cream", "sugar"
+    };
+
+    @Param({"1000", "5000", "10000", "25000", "50000", "100000", "200000"})
+    public int catalogSize;
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    private RecipeService recipeService;
+    private final List<String> pantry = Arrays.asList("salt", "chicken", "garlic", "onion");
+
+    @Setup
+    public void setUp() {
+        // Keep per-request logging out of the measurement
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(RecipeService.class)).setLevel(Level.WARN);
+        recipeService = new RecipeService();
+        // Rank on every call instead of answering from the ranking cache
+        ReflectionTestUtils.setField(recipeService, "rankingCache", new RankingCache(0));
+        recipeService.setRecipes(syntheticCatalog(catalogSize));
+        if ("parallel".equals(mode)) {
+            recipeService.setParallelScoring(Runtime.getRuntime().availableProcessors(), 0, 4096);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        recipeService.shutdown();
+    }
+
+    @Benchmark
+    public List<ScoredRecipe> topTen() {
+        return recipeService.getTopRecipes(pantry, 10);
+    }
+
+    static List<Recipe> syntheticCatalog(int size) {
+        Random random = new Random(42);
+        List<Recipe> recipes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setRecipeIndex(String.valueOf(i));
+            recipe.setTitle("Recipe " + i);
+            List<String> ingredients = new ArrayList<>();
+            int count = 4 + random.nextInt(8);
+            for (int j = 0; j < count; j++) {
+                ingredients.add(INGREDIENTS[random.nextInt(INGREDIENTS.length)] + " " + random.nextInt(50));
+            }
+            recipe.setCleanedIngredients(ingredients);
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RecipeScoringBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -1,13 +1,31 @@
 package com.leftoverchef.backend.service;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.leftoverchef.backend.model.IngredientSuggestion;
+import com.leftoverchef.backend.model.PartialMatch;
 import com.leftoverchef.backend.model.Recipe;
+import com.leftoverchef.backend.model.RecipeFilter;
+import com.leftoverchef.backend.model.ScoredRecipe;
 
 class RecipeServiceTest {
     private RecipeService recipeService;
@@ -115,4 +133,595 @@ class RecipeServiceTest {
         assertNotNull(thirdMatch);
         assertEquals("Pancakes", thirdMatch.getTitle());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testTiesGoToEarliestRecipe() {
+        Recipe omelette = new Recipe();
+        omelette.setRecipeIndex("3");
+        omelette.setTitle("Omelette");
+        omelette.setCleanedIngredients(Arrays.asList("eggs", "milk", "butter", "chives"));
+
+        Recipe frenchToast = new Recipe();
+        frenchToast.setRecipeIndex("4");
+        frenchToast.setTitle("French Toast");
+        frenchToast.setCleanedIngredients(Arrays.asList("bread", "eggs", "milk", "cinnamon"));
+
+        recipeService.setRecipes(Arrays.asList(omelette, frenchToast));
+
+        List<String> ingredients = Arrays.asList("eggs", "milk");
+        assertEquals("Omelette", recipeService.matchRecipe(ingredients).getTitle());
+        assertEquals("French Toast", recipeService.matchRecipe(ingredients).getTitle());
+    }
+
+    @Test
+    void testIngredientWeightsBoostScore() {
+        Recipe roast = new Recipe();
+        roast.setRecipeIndex("5");
+        roast.setTitle("Roast Chicken");
+        roast.setCleanedIngredients(Arrays.asList("whole chicken", "lemon", "garlic", "thyme"));
+        roast.setIngredientWeights(Map.of("Whole Chicken", 4.0, "lemon", 0.25));
+
+        recipeService.setRecipes(Arrays.asList(roast));
+
+        Recipe match = recipeService.matchRecipe(Arrays.asList("Chicken", "lemon"));
+        assertEquals((0.5 + 4.25) / 2, match.getScore(), 0.0001);
+    }
+
+    @Test
+    void testTopRecipesRankedWithScores() {
+        List<ScoredRecipe> top = recipeService.getTopRecipes(Arrays.asList("chicken", "rice", "milk"), 5);
+
+        assertEquals(2, top.size());
+        assertEquals("Chicken Stir Fry", top.get(0).getRecipe().getTitle());
+        assertEquals(0.5, top.get(0).getScore(), 0.0001);
+        assertEquals("Pancakes", top.get(1).getRecipe().getTitle());
+        assertEquals(0.25, top.get(1).getScore(), 0.0001);
+
+        // Ranking does not advance the rotation
+        assertEquals("Chicken Stir Fry", recipeService.matchRecipe(Arrays.asList("chicken", "rice", "milk")).getTitle());
+    }
+
+    @Test
+    void testConcurrentMatchingLeavesCatalogUntouched() throws Exception {
+        String[] pantryItems = {"chicken", "rice", "onion", "flour", "milk", "eggs", "garlic", "tomato"};
+        List<Recipe> catalog = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setRecipeIndex(String.valueOf(i));
+            recipe.setTitle("Recipe " + i);
+            recipe.setCleanedIngredients(Arrays.asList(
+                pantryItems[i % pantryItems.length], pantryItems[(i * 3 + 1) % pantryItems.length], "salt " + i));
+            recipe.setEstimatedPounds("0.5");
+            catalog.add(recipe);
+        }
+        recipeService.setRecipes(catalog);
+
+        List<List<String>> pantries = Arrays.asList(
+            Arrays.asList("chicken", "rice"), Arrays.asList("milk", "eggs", "flour"), Arrays.asList("garlic"));
+        List<List<ScoredRecipe>> expected = new ArrayList<>();
+        for (List<String> pantry : pantries) {
+            expected.add(recipeService.getTopRecipes(pantry, 10));
+        }
+
+        int threads = 8;
+        int iterations = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < iterations; i++) {
+                    int pantry = (i + offset) % pantries.size();
+                    List<ScoredRecipe> top = recipeService.getTopRecipes(pantries.get(pantry), 10);
+                    for (int rank = 0; rank < top.size(); rank++) {
+                        assertSame(expected.get(pantry).get(rank).getRecipe(), top.get(rank).getRecipe());
+                        assertEquals(expected.get(pantry).get(rank).getScore(), top.get(rank).getScore());
+                    }
+                    Recipe match = recipeService.matchRecipe(pantries.get(pantry));
+                    assertNotNull(match);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(threads * iterations * 0.5, recipeService.getTotalFoodSaved(), 0.0001);
+        for (Recipe recipe : catalog) {
+            assertEquals(0.0, recipe.getScore());
+        }
+    }
+
+    @Test
+    void testRotationIsPerSession() {
+        List<String> ingredients = Arrays.asList("flour", "milk");
+
+        assertEquals("Pancakes", recipeService.matchRecipe(ingredients, "alice").getTitle());
+        assertEquals("Pancakes", recipeService.matchRecipe(ingredients, "bob").getTitle());
+        assertEquals("Chicken Stir Fry", recipeService.matchRecipe(ingredients, "alice").getTitle());
+        assertEquals("Chicken Stir Fry", recipeService.getAlternativeRecipe(ingredients, "bob").getTitle());
+    }
+
+    @Test
+    void testParallelScoringMatchesSequential() {
+        String[] pantryItems = {"chicken", "rice", "onion", "flour", "milk", "eggs", "garlic", "tomato"};
+        List<Recipe> catalog = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setRecipeIndex(String.valueOf(i));
+            recipe.setTitle("Recipe " + i);
+            recipe.setCleanedIngredients(Arrays.asList(
+                pantryItems[i % pantryItems.length], pantryItems[(i / 7) % pantryItems.length], "salt " + (i % 11)));
+            catalog.add(recipe);
+        }
+        recipeService.setRecipes(catalog);
+        List<String> pantry = Arrays.asList("chicken", "garlic", "salt 3");
+        // Deeper than the ranking cache, so both calls rank the catalog
+        List<ScoredRecipe> sequential = recipeService.getTopRecipes(pantry, 60);
+
+        recipeService.setParallelScoring(4, 0, 64);
+        try {
+            List<ScoredRecipe> parallel = recipeService.getTopRecipes(pantry, 60);
+            assertEquals(sequential.size(), parallel.size());
+            for (int rank = 0; rank < sequential.size(); rank++) {
+                assertSame(sequential.get(rank).getRecipe(), parallel.get(rank).getRecipe());
+                assertEquals(sequential.get(rank).getScore(), parallel.get(rank).getScore());
+            }
+        } finally {
+            recipeService.shutdown();
+        }
+    }
+
+    @Test
+    void testRankingCacheSharedAcrossSessions() {
+        recipeService.matchRecipe(Arrays.asList("Rice", "chicken "), "alice");
+        Recipe bobMatch = recipeService.matchRecipe(Arrays.asList("chicken", "rice"), "bob");
+        Recipe aliceNext = recipeService.matchRecipe(Arrays.asList("rice", "chicken"), "alice");
+
+        assertEquals("Chicken Stir Fry", bobMatch.getTitle());
+        assertEquals("Pancakes", aliceNext.getTitle());
+        Map<String, Object> stats = recipeService.getCacheStats();
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(2L, stats.get("hits"));
+    }
+
+    @Test
+    void testRankingCacheInvalidatedOnReload() {
+        List<String> ingredients = Arrays.asList("chicken", "rice");
+        assertEquals("Chicken Stir Fry", recipeService.getTopRecipes(ingredients, 1).get(0).getRecipe().getTitle());
+
+        Recipe risotto = new Recipe();
+        risotto.setRecipeIndex("9");
+        risotto.setTitle("Chicken Risotto");
+        risotto.setCleanedIngredients(Arrays.asList("chicken", "rice"));
+        recipeService.setRecipes(Arrays.asList(risotto));
+
+        assertEquals("Chicken Risotto", recipeService.getTopRecipes(ingredients, 1).get(0).getRecipe().getTitle());
+    }
+
+    @Test
+    void testReloadCatalogFromDataFile(@TempDir Path tempDir) throws IOException {
+        Path dataFile = tempDir.resolve("recipes.json");
+        Files.writeString(dataFile, "{\"recipes\": [{\"Recipe Index\": \"1\", \"Title\": \"Fried Rice\", "
+            + "\"Cleaned_Ingredients\": [\"rice\", \"eggs\", \"scallions\"]}]}");
+        ReflectionTestUtils.setField(recipeService, "dataFile", dataFile.toString());
+
+        Map<String, Object> summary = recipeService.reloadCatalog();
+        assertEquals(true, summary.get("reloaded"));
+        assertEquals(1, summary.get("recipes"));
+        assertEquals("Fried Rice", recipeService.matchRecipe(Arrays.asList("rice")).getTitle());
+
+        Files.writeString(dataFile, "[{\"Recipe Index\": \"2\", \"Title\": \"Rice Pudding\", "
+            + "\"Cleaned_Ingredients\": [\"rice\", \"milk\", \"sugar\"]}]");
+        recipeService.reloadCatalog();
+        assertEquals("Rice Pudding", recipeService.getTopRecipes(Arrays.asList("rice"), 1).get(0).getRecipe().getTitle());
+
+        Files.writeString(dataFile, "not json");
+        assertEquals(false, recipeService.reloadCatalog().get("reloaded"));
+        assertEquals("Rice Pudding", recipeService.matchRecipe(Arrays.asList("rice")).getTitle());
+    }
+
+    @Test
+    void testReloadCollapsesDuplicateRecipes(@TempDir Path tempDir) throws IOException {
+        Path dataFile = tempDir.resolve("recipes.json");
+        Files.writeString(dataFile, "[{\"Recipe Index\": \"1\", \"Title\": \"Fried Rice\", "
+            + "\"Cleaned_Ingredients\": [\"rice\", \"eggs\", \"scallions\", \"soy sauce\", \"peas\"]}, "
+            + "{\"Recipe Index\": \"2\", \"Title\": \"fried rice!\", "
+            + "\"Cleaned_Ingredients\": [\"Peas\", \"soy sauce\", \"scallions\", \"eggs\", \"rice\"]}, "
+            + "{\"Recipe Index\": \"3\", \"Title\": \"Fried Rice\", "
+            + "\"Cleaned_Ingredients\": [\"rice\", \"eggs\", \"scallions\", \"soy sauce\", \"peas\", \"carrots\"]}, "
+            + "{\"Recipe Index\": \"4\", \"Title\": \"Rice Pudding\", "
+            + "\"Cleaned_Ingredients\": [\"rice\", \"milk\", \"sugar\"]}]");
+        ReflectionTestUtils.setField(recipeService, "dataFile", dataFile.toString());
+
+        Map<String, Object> summary = recipeService.reloadCatalog();
+        assertEquals(2, summary.get("recipes"));
+        assertEquals(2, summary.get("duplicates"));
+
+        Map<String, Object> report = recipeService.getDuplicateReport(10);
+        assertEquals(4, report.get("recipesRead"));
+        assertEquals(1L, report.get("exactDuplicates"));
+        assertEquals(1L, report.get("nearDuplicates"));
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> duplicates = (List<Map<String, Object>>) report.get("duplicates");
+        assertEquals("2", duplicates.get(0).get("recipeIndex"));
+        assertEquals("exact", duplicates.get(0).get("kind"));
+        assertEquals("3", duplicates.get(1).get("recipeIndex"));
+        assertEquals("1", duplicates.get(1).get("keptRecipeIndex"));
+        assertEquals(7.0 / 8, (double) duplicates.get(1).get("similarity"), 1e-9);
+    }
+
+    @Test
+    void testFiltersPruneByMinutesAndPounds() {
+        String[][] catalog = {
+            {"Slow Chicken Roast", "180", "3.0"},
+            {"Quick Chicken Wrap", "15", "0.5"},
+            {"Chicken Soup", "45", "2.5"},
+            {"Chicken Salad", "", "1.0"},
+            {"Chicken Pie", "60", "lots"},
+        };
+        List<Recipe> recipes = new ArrayList<>();
+        for (String[] row : catalog) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle(row[0]);
+            recipe.setCleanedIngredients(Arrays.asList("chicken", "salt"));
+            recipe.setEstimatedTimeMinutes(row[1]);
+            recipe.setEstimatedPounds(row[2]);
+            recipes.add(recipe);
+        }
+        recipeService.setRecipes(recipes);
+        List<String> pantry = Arrays.asList("chicken");
+
+        assertEquals("Chicken Soup", recipeService.matchRecipe(pantry, "a", new RecipeFilter(60.0, 1.0)).getTitle());
+        assertEquals(2.5, recipeService.getTotalFoodSaved(), 0.0);
+        assertEquals("Quick Chicken Wrap",
+            recipeService.getAlternativeRecipe(pantry, "a", new RecipeFilter(60.0, null)).getTitle());
+        assertNull(recipeService.matchRecipe(pantry, "b", new RecipeFilter(10.0, null)));
+
+        // Unknown values never meet a bound, and an unparseable weight saves nothing
+        List<String> quick = new ArrayList<>();
+        for (ScoredRecipe scored : recipeService.getTopRecipes(pantry, 5, new RecipeFilter(100.0, null))) {
+            quick.add(scored.getRecipe().getTitle());
+        }
+        assertEquals(Arrays.asList("Quick Chicken Wrap", "Chicken Soup", "Chicken Pie"), quick);
+        assertEquals(quick.size(), recipeService.getTopRecipes(pantry, 60, new RecipeFilter(100.0, null)).size());
+        recipeService.matchRecipe(pantry, "c", new RecipeFilter(60.0, null));
+        recipeService.matchRecipe(pantry, "c", new RecipeFilter(60.0, null));
+        recipeService.matchRecipe(pantry, "c", new RecipeFilter(60.0, null));
+        assertEquals(2.5 + 0.5 + 0.5 + 2.5, recipeService.getTotalFoodSaved(), 0.0);
+    }
+
+    @Test
+    void testEmptyPantryAndExhaustedRotationKeepTheFilter() {
+        String[][] catalog = {
+            {"Chicken Pie", "90"},
+            {"Chicken Soup", "30"},
+            {"Chicken Wrap", "15"},
+        };
+        List<Recipe> recipes = new ArrayList<>();
+        for (String[] row : catalog) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle(row[0]);
+            recipe.setCleanedIngredients(Arrays.asList("chicken", "salt"));
+            recipe.setEstimatedTimeMinutes(row[1]);
+            recipes.add(recipe);
+        }
+        recipeService.setRecipes(recipes);
+        RecipeFilter quick = new RecipeFilter(60.0, null);
+
+        assertNull(recipeService.matchRecipe(Collections.emptyList(), "a", quick));
+        assertNull(recipeService.matchRecipe(null, "a", quick));
+        assertNull(recipeService.getAlternativeRecipe(Collections.emptyList(), "a", quick));
+
+        // Once both quick recipes are served the rotation starts over, still within the filter
+        List<String> pantry = Arrays.asList("chicken");
+        List<String> served = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            served.add(recipeService.getAlternativeRecipe(pantry, "a", quick).getTitle());
+        }
+        assertEquals(2, new HashSet<>(served.subList(0, 2)).size());
+        assertEquals(new HashSet<>(served.subList(0, 2)), new HashSet<>(served.subList(2, 4)));
+        assertFalse(served.contains("Chicken Pie"));
+    }
+
+    @Test
+    void testBatchMatchesSingleRequests() {
+        String[] pantryItems = {"chicken", "rice", "onion", "flour", "milk", "eggs", "garlic", "tomato"};
+        List<Recipe> catalog = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle("Recipe " + i);
+            recipe.setCleanedIngredients(Arrays.asList(
+                pantryItems[i % pantryItems.length], pantryItems[(i / 5) % pantryItems.length]));
+            recipe.setEstimatedTimeMinutes(String.valueOf(10 + i % 50));
+            catalog.add(recipe);
+        }
+        recipeService.setRecipes(catalog);
+        List<List<String>> pantries = Arrays.asList(
+            Arrays.asList("chicken", "garlic"), Arrays.asList("Garlic ", "chicken"), null,
+            Arrays.asList("milk"), Collections.emptyList(), Arrays.asList("eggs", "tomato", "rice"));
+
+        recipeService.setParallelScoring(4, 0, 16);
+        try {
+            for (int k : new int[] {5, 60}) {
+                RecipeFilter filter = new RecipeFilter(30.0, null);
+                List<List<ScoredRecipe>> batch = recipeService.getTopRecipesBatch(pantries, k, filter);
+                assertEquals(pantries.size(), batch.size());
+                for (int p = 0; p < pantries.size(); p++) {
+                    List<String> pantry = pantries.get(p);
+                    List<ScoredRecipe> expected = pantry == null || pantry.isEmpty()
+                        ? Collections.emptyList() : recipeService.getTopRecipes(pantry, k, filter);
+                    assertEquals(expected.size(), batch.get(p).size());
+                    for (int rank = 0; rank < expected.size(); rank++) {
+                        assertSame(expected.get(rank).getRecipe(), batch.get(p).get(rank).getRecipe());
+                        assertEquals(expected.get(rank).getScore(), batch.get(p).get(rank).getScore());
+                    }
+                }
+            }
+        } finally {
+            recipeService.shutdown();
+        }
+        // Both spellings of the chicken and garlic pantry shared one ranking
+        assertEquals(3L, recipeService.getCacheStats().get("misses"));
+    }
+
+    @Test
+    void testRecipesMissingAtMostListMissingIngredients() {
+        Object[][] catalog = {
+            {"Omelette", Arrays.asList("eggs", "milk", "salt")},
+            {"Fried Rice", Arrays.asList("rice", "eggs", "soy sauce", "scallion")},
+            {"Scrambled Eggs", Arrays.asList("eggs", "butter")},
+            {"Milkshake", Arrays.asList("milk", "ice cream", "Ice Cream")},
+            {"Toast", Arrays.asList("bread")},
+            {"Custard", Arrays.asList("eggs", "milk")},
+        };
+        List<Recipe> recipes = new ArrayList<>();
+        for (Object[] row : catalog) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle((String) row[0]);
+            @SuppressWarnings("unchecked")
+            List<String> ingredients = (List<String>) row[1];
+            recipe.setCleanedIngredients(ingredients);
+            recipes.add(recipe);
+        }
+        // A weight key that is not an ingredient is never counted as missing
+        recipes.get(5).setIngredientWeights(Map.of("vanilla", 0.2));
+        recipes.get(0).setEstimatedTimeMinutes("10");
+        recipeService.setRecipes(recipes);
+        List<String> pantry = Arrays.asList("Egg", "milk");
+
+        List<PartialMatch> matches = recipeService.getRecipesMissingAtMost(pantry, 1, 10, null);
+        List<String> titles = new ArrayList<>();
+        for (PartialMatch match : matches) {
+            titles.add(match.getRecipe().getTitle());
+        }
+        assertEquals(Arrays.asList("Custard", "Omelette", "Scrambled Eggs", "Milkshake"), titles);
+        assertEquals(Collections.emptyList(), matches.get(0).getMissingIngredients());
+        assertEquals(Arrays.asList("salt"), matches.get(1).getMissingIngredients());
+        assertEquals(Arrays.asList("ice cream"), matches.get(3).getMissingIngredients());
+        assertEquals(2.0 / 3, matches.get(1).getScore(), 1e-9);
+        assertEquals(matches.get(1).getScore(), matches.get(1).getRecipe().getScore());
+
+        assertEquals(2, recipeService.getRecipesMissingAtMost(pantry, 1, 2, null).size());
+        assertEquals(1, recipeService.getRecipesMissingAtMost(pantry, 0, 10, null).size());
+        List<PartialMatch> fried = recipeService.getRecipesMissingAtMost(Arrays.asList("eggs"), 3, 10,
+            new RecipeFilter(30.0, null));
+        assertEquals(1, fried.size());
+        assertEquals(Arrays.asList("milk", "salt"), fried.get(0).getMissingIngredients());
+        assertEquals(Arrays.asList("rice", "soy sauce", "scallion"),
+            recipeService.getRecipesMissingAtMost(Arrays.asList("eggs"), 3, 10, null).get(3).getMissingIngredients());
+    }
+
+    @Test
+    void testRequireAndExcludeIngredients() {
+        Object[][] catalog = {
+            {"Peanut Chicken", Arrays.asList("chicken thighs", "peanut butter", "lime")},
+            {"Chicken Salad", Arrays.asList("chicken breast", "lettuce", "lime")},
+            {"Lime Rice", Arrays.asList("rice", "lime")},
+            {"Satay Tofu", Arrays.asList("tofu", "peanuts", "lime")},
+        };
+        List<Recipe> recipes = new ArrayList<>();
+        for (Object[] row : catalog) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle((String) row[0]);
+            @SuppressWarnings("unchecked")
+            List<String> ingredients = (List<String>) row[1];
+            recipe.setCleanedIngredients(ingredients);
+            recipe.setEstimatedTimeMinutes("20");
+            recipes.add(recipe);
+        }
+        recipeService.setRecipes(recipes);
+        List<String> pantry = Arrays.asList("lime", "peanut");
+
+        RecipeFilter noPeanuts = new RecipeFilter(null, null, null, Arrays.asList(" Peanut"));
+        List<String> titles = new ArrayList<>();
+        for (ScoredRecipe scored : recipeService.getTopRecipes(pantry, 5, noPeanuts)) {
+            titles.add(scored.getRecipe().getTitle());
+        }
+        assertEquals(Arrays.asList("Lime Rice", "Chicken Salad"), titles);
+
+        RecipeFilter chicken = new RecipeFilter(30.0, null, Arrays.asList("chicken", "lime"), null);
+        assertEquals("Peanut Chicken", recipeService.matchRecipe(pantry, "a", chicken).getTitle());
+        assertEquals("Chicken Salad", recipeService.getAlternativeRecipe(pantry, "a", chicken).getTitle());
+
+        RecipeFilter both = new RecipeFilter(null, null, Arrays.asList("chicken"), Arrays.asList("peanut"));
+        assertEquals(1, recipeService.getTopRecipes(pantry, 5, both).size());
+        assertNull(recipeService.matchRecipe(pantry, "b",
+            new RecipeFilter(null, null, Arrays.asList("saffron"), null)));
+        assertTrue(recipeService.getRecipesMissingAtMost(pantry, 3, 5,
+            new RecipeFilter(null, null, null, Arrays.asList("lime"))).isEmpty());
+    }
+
+    @Test
+    void testStoredPantryRanksLikeFullRequest() {
+        String[] pantryItems = {"chicken", "rice", "onion", "flour", "milk", "eggs", "garlic", "tomato"};
+        List<Recipe> catalog = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle("Recipe " + i);
+            recipe.setCleanedIngredients(Arrays.asList(pantryItems[i % pantryItems.length],
+                pantryItems[(i / 3) % pantryItems.length], "salt"));
+            if (i % 4 == 0) {
+                // Weight keys both inside and outside the ingredients
+                recipe.setIngredientWeights(Map.of(pantryItems[i % pantryItems.length], 0.1 * (i % 7),
+                    "cheese", 0.05 * (i % 3)));
+            }
+            catalog.add(recipe);
+        }
+        recipeService.setRecipes(catalog);
+
+        List<String> pantry = new ArrayList<>();
+        String[][] steps = {
+            {"+", "Chicken"}, {"+", "garlic"}, {"+", "rice"}, {"+", "garlic"}, {"-", "chicken"},
+            {"+", "egg"}, {"+", "cheese"}, {"-", "garlic"}, {"+", "tomato"}, {"-", "rice"}, {"-", "garlic"},
+        };
+        for (String[] step : steps) {
+            if (step[0].equals("+")) {
+                recipeService.addPantryItem("s", step[1]);
+                pantry.add(step[1].toLowerCase());
+            } else {
+                assertTrue(recipeService.removePantryItem("s", step[1]));
+                pantry.remove(step[1]);
+            }
+            for (int k : new int[] {1, 10, 60}) {
+                List<ScoredRecipe> expected = recipeService.getTopRecipes(pantry, k);
+                List<ScoredRecipe> actual = recipeService.getPantryTopRecipes("s", k);
+                assertEquals(expected.size(), actual.size());
+                for (int rank = 0; rank < expected.size(); rank++) {
+                    assertSame(expected.get(rank).getRecipe(), actual.get(rank).getRecipe());
+                    assertEquals(expected.get(rank).getScore(), actual.get(rank).getScore());
+                }
+            }
+        }
+        assertEquals(Arrays.asList("cheese", "egg", "tomato"), recipeService.getPantry("s"));
+        assertFalse(recipeService.removePantryItem("s", "garlic"));
+        assertTrue(recipeService.getPantry("other").isEmpty());
+
+        // A reloaded catalog re-ranks the stored items
+        recipeService.setRecipes(catalog.subList(0, 3));
+        assertTrue(recipeService.getPantry("s").isEmpty());
+        recipeService.setPantry("s", Arrays.asList("rice", "Chicken "));
+        assertEquals(Arrays.asList("chicken", "rice"), recipeService.getPantry("s"));
+        assertEquals(3, recipeService.getPantryTopRecipes("s", 5).size());
+
+        // A full pantry turns new items away and stays as it was
+        assertNull(recipeService.addPantryItem("s", "garlic", 2));
+        assertEquals(Arrays.asList("chicken", "rice"), recipeService.getPantry("s"));
+        assertEquals(Arrays.asList("chicken", "garlic", "rice"), recipeService.addPantryItem("s", "garlic", 3));
+    }
+
+    @Test
+    void testAlternativeIsNearestNeighborOfLastServed() {
+        Object[][] catalog = {
+            {"Carbonara", Arrays.asList("spaghetti", "eggs", "pancetta", "parmesan", "pepper")},
+            {"Frittata", Arrays.asList("eggs", "milk", "cheddar", "pepper")},
+            {"Cacio e Pepe", Arrays.asList("spaghetti", "pecorino", "pepper", "parmesan")},
+            {"Amatriciana", Arrays.asList("spaghetti", "pancetta", "tomato", "pecorino")},
+            {"Gricia", Arrays.asList("spaghetti", "pancetta", "pecorino", "pepper")},
+            {"Fruit Salad", Arrays.asList("apple", "banana")},
+        };
+        List<Recipe> recipes = new ArrayList<>();
+        for (Object[] row : catalog) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle((String) row[0]);
+            @SuppressWarnings("unchecked")
+            List<String> ingredients = (List<String>) row[1];
+            recipe.setCleanedIngredients(ingredients);
+            recipes.add(recipe);
+        }
+        recipeService.setRecipes(recipes);
+        List<String> pantry = Arrays.asList("eggs", "pepper", "spaghetti", "pancetta");
+
+        assertEquals("Carbonara", recipeService.matchRecipe(pantry, "a").getTitle());
+        assertEquals("Gricia", recipeService.getAlternativeRecipe(pantry, "a").getTitle());
+        // Frittata ties for the pantry and comes first, but is not among Gricia's nearest
+        assertEquals("Cacio e Pepe", recipeService.getAlternativeRecipe(pantry, "a").getTitle());
+        assertEquals("Amatriciana", recipeService.getAlternativeRecipe(pantry, "a").getTitle());
+        // Amatriciana has no unserved neighbor left, so the pantry ranking takes over
+        assertEquals("Frittata", recipeService.getAlternativeRecipe(pantry, "a").getTitle());
+
+        NeighborIndex neighbors = RecipeCatalog.build(recipes).getNeighbors();
+        assertArrayEquals(new int[] {4, 2, 0}, neighbors.neighbors(3));
+        assertEquals(0, neighbors.neighbors(5).length);
+    }
+
+    @Test
+    void testPairingsFollowCooccurrenceAcrossReloads() {
+        Object[][] catalog = {
+            {"Tomato Salad", Arrays.asList("tomato", "basil", "mozzarella")},
+            {"Bruschetta", Arrays.asList("tomato", "basil", "bread", "garlic")},
+            {"Garlic Bread", Arrays.asList("bread", "garlic", "butter")},
+            {"Cherry Tomato Pasta", Arrays.asList("cherry tomato", "pasta", "garlic")},
+        };
+        List<Recipe> recipes = new ArrayList<>();
+        for (Object[] row : catalog) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle((String) row[0]);
+            @SuppressWarnings("unchecked")
+            List<String> ingredients = (List<String>) row[1];
+            recipe.setCleanedIngredients(ingredients);
+            recipes.add(recipe);
+        }
+        recipeService.setRecipes(recipes);
+
+        // "tomato" names a term, so "cherry tomato" adds no pairings, but it is not suggested either
+        List<IngredientSuggestion> pairings = recipeService.getPairings(Arrays.asList("Tomato"), 5);
+        assertEquals(4, pairings.size());
+        assertEquals("basil", pairings.get(0).getIngredient());
+        assertEquals(2, pairings.get(0).getCount());
+        assertEquals("mozzarella", pairings.get(1).getIngredient());
+        assertEquals(1, pairings.get(1).getCount());
+        assertEquals("bread", pairings.get(2).getIngredient());
+        assertEquals("garlic", pairings.get(3).getIngredient());
+        assertEquals(1, pairings.get(3).getCount());
+
+        // A reload takes back the removed recipe and applies the new one
+        Recipe caprese = new Recipe();
+        caprese.setTitle("Caprese");
+        caprese.setCleanedIngredients(Arrays.asList("tomato", "mozzarella", "Basil"));
+        recipeService.setRecipes(Arrays.asList(recipes.get(0), recipes.get(2), recipes.get(3), caprese));
+        pairings = recipeService.getPairings(Arrays.asList("tomato"), 2);
+        assertEquals("basil", pairings.get(0).getIngredient());
+        assertEquals(2, pairings.get(0).getCount());
+        assertEquals("mozzarella", pairings.get(1).getIngredient());
+        assertEquals(2, pairings.get(1).getCount());
+        assertTrue(recipeService.getPairings(Arrays.asList("saffron"), 5).isEmpty());
+    }
+
+    @Test
+    void testQuantitiesFavorRecipesUsingMoreLeftovers() {
+        Object[][] catalog = {
+            {"Garlic Chicken", Arrays.asList("garlic", "1/2 pound chicken", "4 cups rice")},
+            {"Roast Chicken", Arrays.asList("whole chicken", "2 lb potatoes", "garlic")},
+        };
+        List<Recipe> recipes = new ArrayList<>();
+        for (Object[] row : catalog) {
+            Recipe recipe = new Recipe();
+            recipe.setTitle((String) row[0]);
+            @SuppressWarnings("unchecked")
+            List<String> ingredients = (List<String>) row[1];
+            recipe.setCleanedIngredients(ingredients);
+            recipes.add(recipe);
+        }
+        recipeService.setRecipes(recipes);
+        List<String> pantry = Arrays.asList("garlic", "chicken");
+
+        // Names alone tie, so the earlier recipe wins
+        assertEquals("Garlic Chicken", recipeService.getTopRecipes(pantry, 1).get(0).getRecipe().getTitle());
+
+        // Five pounds of chicken go further in the roast: 4 of 5.0625 pounds used instead of 0.5625
+        Map<String, Double> quantities = Map.of("Chicken", 5.0, "garlic", 0.0625);
+        List<ScoredRecipe> top = recipeService.getTopRecipes(pantry, 2, null, quantities);
+        assertEquals("Roast Chicken", top.get(0).getRecipe().getTitle());
+        assertEquals((2.0 / 3 + (4.0 + 0.0625) / 5.0625) / 2, top.get(0).getScore(), 1e-6);
+        assertEquals("Roast Chicken", recipeService.matchRecipe(pantry, "a", null, quantities).getTitle());
+
+        // Without quantities the cached name ranking is untouched
+        assertEquals("Garlic Chicken", recipeService.matchRecipe(pantry, "b", null, Map.of()).getTitle());
+    }
+}
@@ -0,0 +1,131 @@
+package com.leftoverchef.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leftoverchef.backend.model.Recipe;
+
+class RecipeWeightPipelineTest {
+    private static final String RECIPES = "{\"source\": \"test\", \"recipes\": ["
+        + "{\"Title\": \"Chicken Soup\", \"Cleaned_Ingredients\": [\"1 pound chicken\", \"1 cup stock\"], "
+        + "\"Image_Name\": \"soup\"}, "
+        + "{\"Title\": \"Toast\", \"Cleaned_Ingredients\": [\"1 slice bread\"], \"Estimated_Pounds\": \"1.5\"}, "
+        + "{\"Title\": \"Roast\", \"Instructions\": \"Roast it.\", \"Cleaned_Ingredients\": [\"beef roast\", "
+        + "\"4 potatoes\", \"2 onions\", \"1 whole chicken\"], \"Estimated_Pounds\": 0.0}, "
+        + "{\"Title\": \"No Ingredients\"}]}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void testWeighsRecipesMissingAWeightInOrder(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("raw.json");
+        Files.writeString(input, RECIPES);
+        Path output = tempDir.resolve("recipes.json");
+
+        assertEquals(2, new RecipeWeightPipeline(2, 1, false).run(input, output));
+
+        JsonNode recipes = mapper.readTree(output.toFile()).path("recipes");
+        assertEquals(4, recipes.size());
+        // (1 + 0.5) pounds, plus a fifth for the soup's water
+        assertEquals(1.8, recipes.get(0).path("Estimated_Pounds").asDouble(), 1e-9);
+        assertEquals("soup", recipes.get(0).path("Image_Name").asText());
+        assertEquals("1.5", recipes.get(1).path("Estimated_Pounds").asText());
+        // 3 + 0.375 + 0.5 + 4 pounds roasted down to 85%, capped at ten pounds
+        assertEquals(6.69375, recipes.get(2).path("Estimated_Pounds").asDouble(), 1e-9);
+        assertEquals("No Ingredients", recipes.get(3).path("Title").asText());
+        assertTrue(recipes.get(3).path("Estimated_Pounds").isMissingNode());
+
+        // The service reads the numeric weight into its text field
+        List<Recipe> loaded = new RecipeCatalogLoader(output.toString()).load();
+        assertEquals(3, loaded.size());
+        assertEquals(1.8, Double.parseDouble(loaded.get(0).getEstimatedPounds()), 1e-9);
+    }
+
+    @Test
+    void testRecomputesEveryWeightIntoGzipOutput(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("raw.json");
+        Files.writeString(input, RECIPES);
+        Path output = tempDir.resolve("recipes.json.gz");
+
+        assertEquals(3, new RecipeWeightPipeline(3, 2, true).run(input, output));
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(output))) {
+            JsonNode recipes = mapper.readTree(in).path("recipes");
+            // A lone slice of bread is below the quarter pound floor
+            assertEquals(0.25, recipes.get(1).path("Estimated_Pounds").asDouble(), 1e-9);
+        }
+    }
+
+    @Test
+    void testFailedRunLeavesPreviousOutputInPlace(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("raw.json");
+        Files.writeString(input, RECIPES.substring(0, RECIPES.indexOf("{\"Title\": \"Roast\"")));
+        Path output = tempDir.resolve("recipes.json");
+        Files.writeString(output, "{\"recipes\": [{\"Title\": \"Previous\"}]}");
+
+        assertThrows(IOException.class, () -> new RecipeWeightPipeline(2, 1, false).run(input, output));
+
+        assertEquals("{\"recipes\": [{\"Title\": \"Previous\"}]}", Files.readString(output));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void testRejectsOutputThatIsTheInput(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("raw.json");
+        Files.writeString(input, RECIPES);
+
+        assertThrows(IOException.class,
+            () -> new RecipeWeightPipeline(1, 8, false).run(input, tempDir.resolve(".").resolve("raw.json")));
+        assertEquals(RECIPES, Files.readString(input));
+    }
+
+    @Test
+    void testParsesIngredientListsWrittenAsPythonText(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("raw.json");
+        Files.writeString(input, "[{\"Title\": \"Chicken Soup\", "
+            + "\"Cleaned_Ingredients\": \"['1 pound chicken', \\\"1 cup stock, warmed\\\"]\"}, "
+            + "{\"Title\": \"Stew\", \"Cleaned_Ingredients\": \"chicken and stock\"}]");
+        Path output = tempDir.resolve("recipes.json");
+
+        assertEquals(1, new RecipeWeightPipeline(1, 8, false).run(input, output));
+
+        JsonNode recipes = mapper.readTree(output.toFile()).path("recipes");
+        // Weighed like the array form, and written back as one the service can read
+        assertEquals(1.8, recipes.get(0).path("Estimated_Pounds").asDouble(), 1e-9);
+        assertEquals("1 cup stock, warmed", recipes.get(0).path("Cleaned_Ingredients").get(1).asText());
+        assertEquals(2, new RecipeCatalogLoader(output.toString()).load().get(0).getCleanedIngredients().size());
+        // Text that is not a list is left alone
+        assertEquals("chicken and stock", recipes.get(1).path("Cleaned_Ingredients").asText());
+        assertTrue(recipes.get(1).path("Estimated_Pounds").isMissingNode());
+    }
+
+    @Test
+    void testParsePythonList() {
+        assertEquals(List.of("2 eggs", "baker's sugar", "salt"),
+            RecipeWeightPipeline.parsePythonList(" ['2 eggs', \"baker's sugar\", salt,] "));
+        assertEquals(List.of("it's"), RecipeWeightPipeline.parsePythonList("['it\\'s']"));
+        assertEquals(List.of(), RecipeWeightPipeline.parsePythonList("[]"));
+        assertNull(RecipeWeightPipeline.parsePythonList("['unterminated]"));
+        assertNull(RecipeWeightPipeline.parsePythonList("eggs, salt"));
+    }
+
+    @Test
+    void testClassifiesRecipeTypeFromTitleThenInstructions() {
+        assertEquals(0, RecipeWeightPipeline.recipeType("Clam Chowder", null));
+        assertEquals(7, RecipeWeightPipeline.recipeType("Weeknight Dinner", "Boil the spaghetti."));
+        assertEquals(-1, RecipeWeightPipeline.recipeType("Mystery", "Mix everything."));
+    }
+}
@@ -0,0 +1,75 @@
+package com.leftoverchef.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.leftoverchef.backend.util.TopKSelector;
+
+/**
+ * Merge vs bitset scoring kernel over every candidate of a pantry, single
+ * threaded and without the ranking cache, so only the kernel and the pantry
+ * preparation it needs are measured. Run with:
+ *
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.leftoverchef.backend.service.ScoringEngineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringEngineBenchmark {
+
+    @Param({"10000", "200000"})
+    public int catalogSize;
+
+    @Param({"4", "16", "100"})
+    public int pantrySize;
+
+    @Param({"merge", "bitset"})
+    public String engine;
+
+    private RecipeService recipeService;
+    private RecipeCatalog catalog;
+    private int[][] pantryTermIds;
+    private int[] candidates;
+
+    @Setup
+    public void setUp() {
+        recipeService = new RecipeService();
+        recipeService.setScoringEngine(engine);
+        catalog = RecipeCatalog.build(RecipeScoringBenchmark.syntheticCatalog(catalogSize));
+
+        // Whole terms and fragments like "chicken", which match many terms each
+        Random random = new Random(11);
+        List<String> pantry = new ArrayList<>();
+        for (int i = 0; i < pantrySize; i++) {
+            String term = catalog.getDictionary().term(random.nextInt(catalog.getDictionary().size()));
+            pantry.add(i % 4 == 0 ? term.substring(0, term.indexOf(' ')) : term);
+        }
+        pantryTermIds = catalog.encodePantry(pantry);
+        candidates = catalog.getIndex().candidates(pantryTermIds);
+    }
+
+    @Benchmark
+    public TopKSelector scoreCandidates() {
+        PantryScorer scorer = recipeService.pantryScorer(catalog, pantryTermIds);
+        try {
+            return RecipeService.scoreCandidates(catalog, scorer, candidates, 0, candidates.length, 50, null);
+        } finally {
+            scorer.release();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ScoringEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
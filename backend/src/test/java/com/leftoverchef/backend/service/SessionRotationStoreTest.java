@@ -0,0 +1,74 @@
+package com.leftoverchef.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class SessionRotationStoreTest {
+
+    @Test
+    void testExclusionIsTrackedPerSession() {
+        SessionRotationStore store = new SessionRotationStore(60_000, 10);
+        store.get("alice", 1).exclude(130);
+
+        assertTrue(store.get("alice", 1).isExcluded(130));
+        assertFalse(store.get("alice", 1).isExcluded(129));
+        assertFalse(store.get("bob", 1).isExcluded(130));
+    }
+
+    @Test
+    void testNullSessionIsNotKept() {
+        SessionRotationStore store = new SessionRotationStore(60_000, 10);
+        store.get(null, 1).exclude(3);
+
+        assertFalse(store.get(null, 1).isExcluded(3));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void testCatalogReloadResetsRotation() {
+        SessionRotationStore store = new SessionRotationStore(60_000, 10);
+        store.get("alice", 1).exclude(3);
+
+        assertFalse(store.get("alice", 2).isExcluded(3));
+    }
+
+    @Test
+    void testOlderCatalogVersionDoesNotResetRotation() {
+        SessionRotationStore store = new SessionRotationStore(60_000, 10);
+        store.get("alice", 2).exclude(3);
+
+        // Requests holding the old and new snapshots interleave during a reload
+        for (int i = 0; i < 4; i++) {
+            assertTrue(store.get("alice", 1).isExcluded(3));
+            assertTrue(store.get("alice", 2).isExcluded(3));
+        }
+        store.get("alice", 2).exclude(5);
+        assertTrue(store.get("alice", 1).isExcluded(5));
+        assertFalse(store.get("alice", 3).isExcluded(3));
+    }
+
+    @Test
+    void testLeastRecentlyUsedSessionsEvictedOverLimit() {
+        SessionRotationStore store = new SessionRotationStore(60_000, 3);
+        for (int i = 0; i < 10; i++) {
+            store.get("session-" + i, 1).exclude(i);
+        }
+
+        assertEquals(3, store.size());
+        assertTrue(store.get("session-9", 1).isExcluded(9));
+    }
+
+    @Test
+    void testIdleSessionsExpire() throws InterruptedException {
+        SessionRotationStore store = new SessionRotationStore(1, 1000);
+        store.get("idle", 1).exclude(0);
+        Thread.sleep(5);
+        for (int i = 0; i < 256; i++) {
+            store.get("active", 1);
+        }
+
+        assertEquals(1, store.size());
+        assertFalse(store.get("idle", 1).isExcluded(0));
+    }
+}
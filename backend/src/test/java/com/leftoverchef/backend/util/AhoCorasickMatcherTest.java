@@ -0,0 +1,68 @@
+package com.leftoverchef.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+class AhoCorasickMatcherTest {
+
+    @Test
+    void testFindsOverlappingPatterns() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(Arrays.asList("he", "she", "his", "hers"));
+
+        assertEquals(Set.of(0, 1, 3), matches(matcher, "ushers"));
+        assertEquals(Set.of(2), matches(matcher, "this"));
+        assertEquals(Set.of(), matches(matcher, "xyz"));
+    }
+
+    @Test
+    void testIngredientSubstrings() {
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(Arrays.asList("chicken", "rice", "carrot", ""));
+
+        assertEquals(Set.of(0), matches(matcher, "boneless chicken thighs"));
+        assertEquals(Set.of(1), matches(matcher, "cooked brown rice"));
+        assertEquals(Set.of(2), matches(matcher, "carrots"));
+    }
+
+    @Test
+    void testAgreesWithContains() {
+        Random random = new Random(7);
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            patterns.add(randomString(random, 1 + random.nextInt(4)));
+        }
+        AhoCorasickMatcher matcher = AhoCorasickMatcher.compile(patterns);
+
+        for (int t = 0; t < 500; t++) {
+            String text = randomString(random, random.nextInt(30));
+            Set<Integer> expected = new TreeSet<>();
+            for (int i = 0; i < patterns.size(); i++) {
+                if (text.contains(patterns.get(i))) {
+                    expected.add(i);
+                }
+            }
+            assertEquals(expected, matches(matcher, text), text);
+        }
+    }
+
+    private static Set<Integer> matches(AhoCorasickMatcher matcher, String text) {
+        Set<Integer> found = new TreeSet<>();
+        matcher.forEachMatch(text, found::add);
+        return found;
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(3)));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.leftoverchef.backend.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Weighing a batch of ingredient lines with the scanner against the regex
+ * parser it replaced, which compiled its pattern and built its unit map on
+ * every call. Run with -prof gc to compare allocation per line as well:
+ *
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.leftoverchef.backend.util.IngredientWeightBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IngredientWeightBenchmark {
+    private static final String[] LINES = {
+        "1 pound chicken", "1/2 cup rice", "2 medium potatoes", "8 oz flour", "1 tablespoon oil",
+        "3 cloves garlic, minced", "chicken breast", "100 g sugar", "1 large onion, diced",
+        "2 cups chicken stock", "1/4 teaspoon salt", "salt and pepper to taste",
+    };
+
+    @Param({"1000"})
+    public int lineCount;
+
+    @Param({"scanner", "regex"})
+    public String parser;
+
+    private List<String> lines;
+    private double[] weights;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(5);
+        lines = new ArrayList<>();
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(LINES[random.nextInt(LINES.length)]);
+        }
+        weights = new double[lineCount];
+    }
+
+    @Benchmark
+    public double weighLines() {
+        if (parser.equals("scanner")) {
+            return IngredientWeightCalculator.calculateIngredientWeights(lines, weights);
+        }
+        double total = 0.0;
+        for (int i = 0; i < lines.size(); i++) {
+            weights[i] = regexWeight(lines.get(i));
+            total += weights[i];
+        }
+        return total;
+    }
+
+    /**
+     * The measurement half of the previous parser, kept as the baseline; the
+     * unit's name length stands in for its conversion
+     */
+    private static double regexWeight(String ingredient) {
+        String ingredientLower = ingredient.toLowerCase();
+        Pattern pattern = Pattern.compile("(\\d+(?:/\\d+)?|\\d*\\.\\d+)\\s*(cup|tablespoon|teaspoon|pound|ounce|lb|oz|g)s?");
+        Matcher matcher = pattern.matcher(ingredientLower);
+        if (matcher.find()) {
+            String quantityStr = matcher.group(1);
+            double quantity;
+            if (quantityStr.contains("/")) {
+                String[] fraction = quantityStr.split("/");
+                quantity = Double.parseDouble(fraction[0]) / Double.parseDouble(fraction[1]);
+            } else {
+                quantity = Double.parseDouble(quantityStr);
+            }
+            Map<String, String> unitMapping = new HashMap<>();
+            unitMapping.put("lb", "pound");
+            unitMapping.put("oz", "ounce");
+            unitMapping.put("g", "gram");
+            return quantity * unitMapping.getOrDefault(matcher.group(2), matcher.group(2)).length();
+        }
+        return 0.25;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IngredientWeightBenchmark.class.getSimpleName()).build()).run();
+    }
+}
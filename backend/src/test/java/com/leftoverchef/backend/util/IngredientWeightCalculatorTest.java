@@ -1,6 +1,10 @@
 package com.leftoverchef.backend.util;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
 import org.junit.jupiter.api.Test;
 
 class IngredientWeightCalculatorTest {
@@ -12,6 +16,15 @@ class IngredientWeightCalculatorTest {
         assertEquals(0.0625, IngredientWeightCalculator.calculateIngredientWeight("1 tablespoon oil"), 0.01);
     }
 
+    @Test
+    void testIngredientNames() {
+        assertEquals("chopped onion", IngredientWeightCalculator.ingredientName("2 cups chopped onion, divided"));
+        assertEquals("butter", IngredientWeightCalculator.ingredientName("1 1/2 tbsp. butter"));
+        assertEquals("eggs", IngredientWeightCalculator.ingredientName("2-3 eggs"));
+        assertEquals("salt", IngredientWeightCalculator.ingredientName("salt"));
+        assertEquals("2", IngredientWeightCalculator.ingredientName(" 2 "));
+    }
+
     @Test
     void testFractions() {
         assertEquals(0.25, IngredientWeightCalculator.calculateIngredientWeight("1/4 pound beef"), 0.01);
@@ -44,4 +57,59 @@ class IngredientWeightCalculatorTest {
         assertEquals(0.0625, IngredientWeightCalculator.calculateIngredientWeight("1 oz butter"), 0.01);
         assertEquals(0.22, IngredientWeightCalculator.calculateIngredientWeight("100 g sugar"), 0.01);
     }
-} 
\ No newline at end of file
+
+    @Test
+    void testMixedNumbersAndUnicodeFractions() {
+        assertEquals(0.75, IngredientWeightCalculator.calculateIngredientWeight("1 1/2 cups milk"), 0.001);
+        assertEquals(0.5, IngredientWeightCalculator.calculateIngredientWeight("½ lb. bacon"), 0.001);
+        assertEquals(1.25, IngredientWeightCalculator.calculateIngredientWeight("1¼ pounds pork"), 0.001);
+        assertEquals(0.75, IngredientWeightCalculator.calculateIngredientWeight("1 ½ cups rice"), 0.001);
+        assertEquals(0.25, IngredientWeightCalculator.calculateIngredientWeight(".5 cup stock"), 0.001);
+    }
+
+    @Test
+    void testRangesAndAbbreviations() {
+        assertEquals(0.15625, IngredientWeightCalculator.calculateIngredientWeight("2-3 Tbsp butter"), 0.001);
+        assertEquals(3.75, IngredientWeightCalculator.calculateIngredientWeight("3½–4-lb. chicken"), 0.001);
+        assertEquals(0.0312, IngredientWeightCalculator.calculateIngredientWeight("1 to 2 tsp salt"), 0.001);
+        assertEquals(4.0, IngredientWeightCalculator.calculateIngredientWeight("1 (4-lb) whole chicken"), 0.001);
+    }
+
+    @Test
+    void testOnlyWholeWordsAreUnits() {
+        assertEquals(0.0625, IngredientWeightCalculator.calculateIngredientWeight("1 garlic clove"), 0.001);
+        assertEquals(0.375, IngredientWeightCalculator.calculateIngredientWeight("2 large tomatoes"), 0.001);
+        assertEquals(0.25, IngredientWeightCalculator.calculateIngredientWeight("1/0 cup water"), 0.001);
+    }
+
+    @Test
+    void testBulkWeighing() {
+        double[] weights = new double[4];
+        double total = IngredientWeightCalculator.calculateIngredientWeights(
+            Arrays.asList("1 pound chicken", null, "1 garlic clove", "8 oz flour"), weights);
+
+        assertArrayEquals(new double[] {1.0, 0.0, 0.0625, 0.5}, weights, 0.001);
+        assertEquals(1.5625, total, 0.001);
+    }
+
+    @Test
+    void testLongestIngredientTypeWins() {
+        assertEquals(0.375, IngredientWeightCalculator.calculateIngredientWeight("sweet potato roast"), 0.001);
+        assertEquals(0.25, IngredientWeightCalculator.calculateIngredientWeight("Green Pepper Steak"), 0.001);
+        assertEquals(1.0, IngredientWeightCalculator.calculateIngredientWeight("pork tenderloin"), 0.001);
+        assertEquals(0.375, IngredientWeightCalculator.calculateIngredientWeight("2 apples, cored"), 0.001);
+        assertEquals(0.25, IngredientWeightCalculator.calculateIngredientWeight("juice of 1 lemon"), 0.001);
+    }
+
+    @Test
+    void testQuantitiesGivenApartFromTheItem() {
+        assertEquals(0.25, IngredientWeightCalculator.calculateQuantityWeight("3", "eggs"), 0.001);
+        assertEquals(0.5, IngredientWeightCalculator.calculateQuantityWeight("2", "onion"), 0.001);
+        assertEquals(0.375, IngredientWeightCalculator.calculateQuantityWeight("1 1/2", "potatoes"), 0.001);
+        assertEquals(IngredientWeightCalculator.calculateIngredientWeight("2 large tomatoes"),
+            IngredientWeightCalculator.calculateQuantityWeight("2 large", "tomatoes"), 0.0);
+        assertEquals(2.0, IngredientWeightCalculator.calculateQuantityWeight("2 lb", "chicken breast"), 0.001);
+        assertEquals(0.25, IngredientWeightCalculator.calculateQuantityWeight("½ cup", "rice"), 0.001);
+        assertEquals(0.0625, IngredientWeightCalculator.calculateQuantityWeight("a handful", "garlic"), 0.001);
+    }
+}
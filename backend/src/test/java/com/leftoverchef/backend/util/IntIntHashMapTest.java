@@ -0,0 +1,65 @@
+package com.leftoverchef.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class IntIntHashMapTest {
+
+    @Test
+    void testMatchesHashMapThroughGrowth() {
+        IntIntHashMap map = new IntIntHashMap(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(5000) * 64;
+            int delta = random.nextInt(5) - 1;
+            assertEquals(expected.merge(key, delta, Integer::sum).intValue(), map.add(key, delta));
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int entry = 0; entry < map.size(); entry++) {
+            assertEquals(expected.get(map.keyAt(entry)).intValue(), map.valueAt(entry));
+        }
+        assertEquals(0, map.get(1));
+    }
+
+    @Test
+    void testRemoveKeepsEveryOtherKeyReachable() {
+        IntIntHashMap map = new IntIntHashMap(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 50_000; i++) {
+            // Few distinct keys in a small table, so probe runs are long and wrap around
+            int key = random.nextInt(300) * 16;
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed != null ? removed : 0, map.remove(key));
+            } else {
+                assertEquals(expected.merge(key, 1, Integer::sum).intValue(), map.add(key, 1));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 300 * 16; key += 16) {
+            assertEquals(expected.getOrDefault(key, 0).intValue(), map.get(key));
+        }
+        // Entries stay dense: the first size() of them are exactly the keys left
+        Map<Integer, Integer> entries = new HashMap<>();
+        for (int entry = 0; entry < map.size(); entry++) {
+            entries.put(map.keyAt(entry), map.valueAt(entry));
+        }
+        assertEquals(expected, entries);
+        assertEquals(0, map.remove(-1));
+    }
+
+    @Test
+    void testRejectsNegativeKeys() {
+        assertThrows(IllegalArgumentException.class, () -> new IntIntHashMap().add(-1, 1));
+    }
+}
@@ -0,0 +1,64 @@
+package com.leftoverchef.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TextBlobTest {
+
+    @Test
+    void testStringsRoundTrip() {
+        TextBlob.Builder builder = new TextBlob.Builder();
+        int first = builder.add("Whisk the eggs.");
+        int empty = builder.add("");
+        int accented = builder.add("Crème brûlée – caramelize the sugar");
+        TextBlob blob = builder.build();
+
+        assertEquals(3, blob.size());
+        assertEquals("Whisk the eggs.", blob.get(first));
+        assertEquals("", blob.get(empty));
+        assertEquals("Crème brûlée – caramelize the sugar", blob.get(accented));
+        assertNull(blob.get(-1));
+    }
+
+    @Test
+    void testGrowsPastInitialCapacity() {
+        TextBlob.Builder builder = new TextBlob.Builder();
+        String paragraph = "Simmer gently and stir. ".repeat(500);
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(i, builder.add(i + ": " + paragraph));
+        }
+        TextBlob blob = builder.build();
+
+        assertEquals(2000, blob.size());
+        assertEquals("1999: " + paragraph, blob.get(1999));
+        assertEquals("0: " + paragraph, blob.get(0));
+    }
+
+    @Test
+    void testStringsSpanChunks() {
+        TextBlob.Builder builder = new TextBlob.Builder(4, Integer.MAX_VALUE);
+        String[] values = {"Crème brûlée", "", "a", "Simmer gently and stir until thick", "ü".repeat(20)};
+        for (String value : values) {
+            builder.add(value);
+        }
+        TextBlob blob = builder.build();
+
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], blob.get(i));
+        }
+    }
+
+    @Test
+    void testFailsClearlyWhenFull() {
+        TextBlob.Builder builder = new TextBlob.Builder(4, 40);
+        builder.add("Whisk the eggs until pale.");
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> builder.add("Fold in the flour."));
+        assertTrue(e.getMessage().startsWith("Text table is full"), e.getMessage());
+        assertEquals("Whisk the eggs until pale.", builder.build().get(0));
+    }
+}
@@ -0,0 +1,68 @@
+package com.leftoverchef.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class TopKSelectorTest {
+
+    @Test
+    void testKeepsBestScoresInOrder() {
+        TopKSelector selector = new TopKSelector(3);
+        double[] scores = {0.2, 0.9, 0.5, 0.1, 0.7};
+        for (int id = 0; id < scores.length; id++) {
+            selector.offer(id, scores[id]);
+        }
+        selector.sort();
+
+        assertEquals(3, selector.size());
+        assertEquals(1, selector.id(0));
+        assertEquals(4, selector.id(1));
+        assertEquals(2, selector.id(2));
+        assertEquals(0.9, selector.score(0), 0.0);
+    }
+
+    @Test
+    void testTiesGoToLowerId() {
+        TopKSelector selector = new TopKSelector(2);
+        selector.offer(5, 0.5);
+        selector.offer(2, 0.5);
+        selector.offer(7, 0.5);
+        selector.sort();
+
+        assertEquals(2, selector.id(0));
+        assertEquals(5, selector.id(1));
+    }
+
+    @Test
+    void testMatchesStableSort() {
+        Random random = new Random(42);
+        double[] scores = new double[1000];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextInt(20) / 20.0;
+        }
+        Integer[] expected = IntStream.range(0, scores.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(expected, Comparator.comparingDouble((Integer id) -> scores[id]).reversed());
+
+        TopKSelector selector = new TopKSelector(25);
+        for (int id = 0; id < scores.length; id++) {
+            selector.offer(id, scores[id]);
+        }
+        selector.sort();
+
+        for (int rank = 0; rank < selector.size(); rank++) {
+            assertEquals(expected[rank], selector.id(rank));
+        }
+    }
+
+    @Test
+    void testRejectsInvalidK() {
+        assertThrows(IllegalArgumentException.class, () -> new TopKSelector(0));
+    }
+}